@@ -24,11 +24,15 @@ import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -38,6 +42,8 @@ import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 
@@ -59,17 +65,20 @@ import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.config.SimpleNode;
 import ch.njol.skript.effects.Delay;
+import ch.njol.skript.events.EvtScript;
 import ch.njol.skript.events.bukkit.PreScriptLoadEvent;
 import ch.njol.skript.lang.Condition;
 import ch.njol.skript.lang.Conditional;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.Loop;
+import ch.njol.skript.lang.ParseCache;
 import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
 import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.SkriptEventInfo;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Statement;
+import ch.njol.skript.lang.SyntaxElementIndex;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.TriggerSection;
@@ -77,6 +86,7 @@ import ch.njol.skript.lang.While;
 import ch.njol.skript.lang.function.Function;
 import ch.njol.skript.lang.function.FunctionEvent;
 import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
 import ch.njol.skript.localization.PluralizingArgsMessage;
@@ -110,13 +120,23 @@ final public class ScriptLoader {
 			m_no_scripts = new Message("skript.no scripts");
 	private final static PluralizingArgsMessage m_scripts_loaded = new PluralizingArgsMessage("skript.scripts loaded");
 	
+	/**
+	 * @return The script that is currently being loaded by this thread, if any
+	 * @see ParserInstance
+	 */
 	@Nullable
-	public static Config currentScript = null;
+	public static Config getCurrentScript() {
+		return ParserInstance.get().getCurrentScript();
+	}
+	
+	public static void setCurrentScript(final @Nullable Config script) {
+		ParserInstance.get().setCurrentScript(script);
+	}
 
 	/**
 	 * If true, a {@link PreScriptLoadEvent} will be called
 	 * right before a script starts parsing, but after
-	 * {@link ScriptLoader#currentScript} has been set
+	 * {@link ScriptLoader#getCurrentScript()} has been set
 	 * to a non-null {@link Config}.
 	 */
 	private static boolean callPreLoadEvent;
@@ -158,23 +178,11 @@ final public class ScriptLoader {
 		return Collections.unmodifiableSet(preloadListeners);
 	}
 
-	/**
-	 * use {@link #setCurrentEvent(String, Class...)}
-	 */
-	@Nullable
-	private static String currentEventName = null;
-	
 	@Nullable
 	public static String getCurrentEventName() {
-		return currentEventName;
+		return ParserInstance.get().getCurrentEventName();
 	}
 	
-	/**
-	 * use {@link #setCurrentEvent(String, Class...)}
-	 */
-	@Nullable
-	private static Class<? extends Event>[] currentEvents = null;
-	
 	/**
 	 * Call {@link #deleteCurrentEvent()} after parsing
 	 * 
@@ -183,27 +191,33 @@ final public class ScriptLoader {
 	 */
 	@SafeVarargs
 	public static void setCurrentEvent(final String name, final @Nullable Class<? extends Event>... events) {
-		currentEventName = name;
-		currentEvents = events;
-		hasDelayBefore = Kleenean.FALSE;
+		ParserInstance.get().setCurrentEvent(name, events);
 	}
 	
 	public static void deleteCurrentEvent() {
-		currentEventName = null;
-		currentEvents = null;
-		hasDelayBefore = Kleenean.FALSE;
+		ParserInstance.get().setCurrentEvent(null, null);
 	}
 	
-	public static List<TriggerSection> currentSections = new ArrayList<>();
-	public static List<Loop> currentLoops = new ArrayList<>();
-	final static HashMap<String, String> currentOptions = new HashMap<>();
+	public static List<TriggerSection> getCurrentSections() {
+		return ParserInstance.get().getCurrentSections();
+	}
+	
+	public static List<Loop> getCurrentLoops() {
+		return ParserInstance.get().getCurrentLoops();
+	}
 	
 	/**
 	 * must be synchronized
 	 */
 	private final static ScriptInfo loadedScripts = new ScriptInfo();
 	
-	public static Kleenean hasDelayBefore = Kleenean.FALSE;
+	public static Kleenean getHasDelayBefore() {
+		return ParserInstance.get().getHasDelayBefore();
+	}
+	
+	public static void setHasDelayBefore(final Kleenean hasDelayBefore) {
+		ParserInstance.get().setHasDelayBefore(hasDelayBefore);
+	}
 	
 	public static class ScriptInfo {
 		public int files, triggers, commands, functions;
@@ -272,8 +286,6 @@ final public class ScriptLoader {
 //		public final List<ScriptCommand> commands = new ArrayList<ScriptCommand>();
 //	}
 	
-	private static String indentation = "";
-	
 	// Load scripts in separate (one) thread
 	static final BlockingQueue<Runnable> loadQueue = new ArrayBlockingQueue<>(20, true);
 	static final Thread loaderThread;
@@ -295,6 +307,19 @@ final public class ScriptLoader {
 		return loadAsync;
 	}
 	
+	/**
+	 * Whether several scripts are parsed at once on the common {@link ForkJoinPool}. Scripts are still enabled one after another in their
+	 * usual order, and their logs are printed in that order as well.
+	 */
+	static boolean loadParallel;
+	
+	/**
+	 * @return Whether scripts are parsed in parallel, see {@link ParserInstance}
+	 */
+	public static boolean isParallel() {
+		return loadParallel;
+	}
+	
 	/**
 	 * All loaded script files.
 	 */
@@ -372,6 +397,8 @@ final public class ScriptLoader {
 				Skript.warning(m_no_scripts.toString());
 			if (Skript.logNormal() && i.files > 0)
 				Skript.info(m_scripts_loaded.toString(i.files, i.triggers, i.commands, start.difference(new Date())));
+			SyntaxElementIndex.printStatistics();
+			ParseCache.printStatistics();
 			
 			SkriptEventHandler.registerBukkitEvents();
 		};
@@ -405,9 +432,12 @@ final public class ScriptLoader {
 			// Do NOT sort here, list must be loaded in order it came in (see issue #667)
 			final boolean wasLocal = Language.setUseLocal(false);
 			try {
-				for (final Config cfg : configs) {
+				// Addons listening to PreScriptLoadEvent may expect scripts to be parsed one after another
+				final List<ForkJoinTask<ParsedScript>> parsedScripts = loadParallel && !callPreLoadEvent && configs.size() > 1 ? parseScripts(configs) : null;
+				for (int j = 0; j < configs.size(); j++) {
+					final Config cfg = configs.get(j);
 					assert cfg != null : configs.toString();
-					ScriptInfo info = loadScript(cfg);
+					ScriptInfo info = parsedScripts != null ? enableScript(parsedScripts.get(j).join()) : loadScript(cfg);
 					
 					// Check if commands have been changed and a re-send is needed
 					if (!info.commandNames.equals(commandNames.get(cfg.getFileName()))) {
@@ -430,12 +460,7 @@ final public class ScriptLoader {
 		
 		// After we've loaded everything, refresh commands their names changed
 		if (syncCommands.get()) {
-			Server server = Bukkit.getServer();
-			assert server != null;
-			if (CommandReloader.syncCommands(server)) 
-				Skript.debug("Commands synced to clients");
-			else
-				Skript.debug("Commands changed but not synced to clients (normal on 1.12 and older)");
+			syncCommands();
 		} else {
 			Skript.debug("Commands unchanged, not syncing them to clients");
 		}
@@ -445,6 +470,128 @@ final public class ScriptLoader {
 		return i;
 	}
 	
+	private static void syncCommands() {
+		Server server = Bukkit.getServer();
+		assert server != null;
+		if (CommandReloader.syncCommands(server)) 
+			Skript.debug("Commands synced to clients");
+		else
+			Skript.debug("Commands changed but not synced to clients (normal on 1.12 and older)");
+	}
+	
+	/**
+	 * Reloads a loaded script. If only triggers and commands were added, changed or removed, only these are parsed again and swapped,
+	 * while all other triggers and commands of the script are kept as they are. If options, aliases, variables or functions changed, or
+	 * if the script has load or unload events, the whole script is unloaded and loaded again instead.
+	 * 
+	 * @param script The script file
+	 * @return Info on what was loaded
+	 */
+	@SuppressWarnings("resource") // Stream is closed in Config constructor
+	public static ScriptInfo reloadScript(final File script) {
+		final List<ScriptSection> previous;
+		synchronized (scriptSections) {
+			previous = scriptSections.get(script);
+		}
+		if (previous == null || loadAsync || !script.exists()) {
+			if (!loadAsync)
+				unloadScript(script);
+			return loadScripts(loadStructure(script));
+		}
+		
+		final Config config;
+		try {
+			final String name = Skript.getInstance().getDataFolder().toPath().toAbsolutePath()
+					.resolve(Skript.SCRIPTSFOLDER).relativize(script.toPath().toAbsolutePath()).toString();
+			assert name != null;
+			config = new Config(new FileInputStream(script), name, script, true, false, ":");
+		} catch (final IOException e) {
+			Skript.error("Could not load " + script.getName() + ": " + ExceptionUtils.toString(e));
+			return new ScriptInfo();
+		}
+		
+		final List<ScriptSection> sections = new ArrayList<>(), removed = new ArrayList<>();
+		if (!matchSections(config, previous, sections, removed)) {
+			unloadScript(script);
+			return loadScripts(loadStructure(config));
+		}
+		
+		final ScriptInfo info;
+		final boolean wasLocal = Language.setUseLocal(false);
+		try {
+			final ParsedScript parsed = parseScript(config, sections);
+			parsed.removedSections.addAll(removed);
+			info = enableScript(parsed);
+		} finally {
+			if (wasLocal)
+				Language.setUseLocal(true);
+		}
+		if (!info.commandNames.equals(commandNames.get(config.getFileName()))) {
+			commandNames.put(config.getFileName(), info.commandNames);
+			syncCommands();
+		}
+		SkriptEventHandler.registerBukkitEvents();
+		return info;
+	}
+	
+	/**
+	 * Finds the top-level sections of a new version of a script that did not change.
+	 * 
+	 * @param sections Where to put the sections of the new version, with the ones that did not change {@link ScriptSection#kept kept}
+	 * @param removed Where to put the sections of the previous version that are not kept
+	 * @return Whether only triggers and commands changed, i.e. whether the script can be reloaded partially
+	 */
+	private static boolean matchSections(final Config config, final List<ScriptSection> previous, final List<ScriptSection> sections, final List<ScriptSection> removed) {
+		// Sections only stay the same if they have the same options etc. before them
+		final Map<ScriptSection, Integer> previousGlobals = new HashMap<>();
+		final List<String> globals = new ArrayList<>();
+		final Map<String, Deque<ScriptSection>> unchanged = new HashMap<>();
+		for (final ScriptSection s : previous) {
+			final Trigger trigger = s.trigger;
+			if (trigger != null && trigger.getEvent() instanceof EvtScript)
+				return false; // Load and unload events are called when the whole script is reloaded
+			if (s.global) {
+				globals.add(s.text);
+			} else if (s.trigger != null || s.command != null) { // Sections that failed to load are loaded again to show the errors again
+				previousGlobals.put(s, globals.size());
+				unchanged.computeIfAbsent(s.text, k -> new ArrayDeque<>()).add(s);
+			}
+		}
+		
+		int g = 0;
+		final Set<ScriptSection> kept = new HashSet<>();
+		for (final Node node : config.getMainNode()) {
+			if (!(node instanceof SectionNode))
+				continue;
+			final ScriptSection section = new ScriptSection((SectionNode) node);
+			if (section.global) {
+				if (g == globals.size() || !globals.get(g).equals(section.text))
+					return false;
+				g++;
+				section.kept = true;
+			} else {
+				final Deque<ScriptSection> same = unchanged.get(section.text);
+				final ScriptSection old = same == null ? null : same.peek();
+				if (old != null && previousGlobals.get(old) == g) {
+					same.poll();
+					kept.add(old);
+					section.kept = true;
+					section.trigger = old.trigger;
+					section.command = old.command;
+				}
+			}
+			sections.add(section);
+		}
+		if (g != globals.size())
+			return false;
+		
+		for (final ScriptSection s : previous) {
+			if (!s.global && !kept.contains(s))
+				removed.add(s);
+		}
+		return true;
+	}
+	
 	/**
 	 * Loads specified scripts and places log to given list.
 	 * 
@@ -491,17 +638,96 @@ final public class ScriptLoader {
 	 */
 	private static class ParsedEventData {
 		
-		public ParsedEventData(NonNullPair<SkriptEventInfo<?>, SkriptEvent> info, String event, SectionNode node, List<TriggerItem> items) {
+		public ParsedEventData(NonNullPair<SkriptEventInfo<?>, SkriptEvent> info, String event, SectionNode node, List<TriggerItem> items, ScriptSection section) {
 			this.info = info;
 			this.event = event;
 			this.node = node;
 			this.items = items;
+			this.section = section;
 		}
 		
 		public final NonNullPair<SkriptEventInfo<?>, SkriptEvent> info;
 		public final String event;
 		public final SectionNode node;
 		public final List<TriggerItem> items;
+		public final ScriptSection section;
+	}
+	
+	/**
+	 * A top-level section of a loaded script and the trigger or command loaded from it, used by {@link #reloadScript(File)} to only reload the sections that
+	 * changed.
+	 */
+	private static class ScriptSection {
+		
+		public ScriptSection(SectionNode node) {
+			final StringWriter w = new StringWriter();
+			try (PrintWriter pw = new PrintWriter(w)) {
+				node.save(pw);
+			}
+			text = "" + w;
+			line = node.getLine();
+			final String key = "" + node.getKey();
+			global = key.equalsIgnoreCase("options") || key.equalsIgnoreCase("aliases") || key.equalsIgnoreCase("variables")
+					|| key.toLowerCase(Locale.ENGLISH).startsWith("function ");
+		}
+		
+		/**
+		 * The section's lines without line numbers
+		 */
+		public final String text;
+		
+		public final int line;
+		
+		/**
+		 * Whether the section affects other sections, i.e. whether the whole script has to be reloaded if it changed
+		 */
+		public final boolean global;
+		
+		/**
+		 * Whether this section did not change and is kept from the previous version of the script
+		 */
+		public boolean kept = false;
+		
+		@Nullable
+		public Trigger trigger;
+		
+		@Nullable
+		public ScriptCommand command;
+	}
+	
+	/**
+	 * The top-level sections of the loaded scripts, must be synchronized
+	 */
+	private static final Map<File, List<ScriptSection>> scriptSections = new HashMap<>();
+	
+	/**
+	 * A script that has been parsed, but not enabled yet.
+	 */
+	private static class ParsedScript {
+		
+		public ParsedScript(Config config) {
+			this.config = config;
+		}
+		
+		public final Config config;
+		
+		// When something is parsed, it goes there to be loaded later
+		public final List<ScriptCommand> commands = new ArrayList<>();
+		public final List<Function<?>> functions = new ArrayList<>();
+		public final List<ParsedEventData> events = new ArrayList<>();
+		
+		// The top-level sections, and the ones of the previous version of the script that changed and have to be unloaded
+		public final List<ScriptSection> sections = new ArrayList<>();
+		public final List<ScriptSection> removedSections = new ArrayList<>();
+		
+		// Track what is loaded
+		public final ScriptInfo info = new ScriptInfo();
+		
+		/**
+		 * The log of parsing the script, if it was parsed in parallel to other scripts
+		 */
+		@Nullable
+		public RetainingLogHandler log;
 	}
 	
 	/**
@@ -514,22 +740,51 @@ final public class ScriptLoader {
 		if (config == null) { // Something bad happened, hopefully got logged to console
 			return new ScriptInfo();
 		}
-		
-		// When something is parsed, it goes there to be loaded later
-		List<ScriptCommand> commands = new ArrayList<>();
-		List<Function<?>> functions = new ArrayList<>();
-		List<ParsedEventData> events = new ArrayList<>();
-		
-		// Track what is loaded
-		ScriptInfo i = new ScriptInfo();
+		return enableScript(parseScript(config, null));
+	}
+	
+	/**
+	 * Parses the given scripts in parallel, each with its own {@link ParserInstance}. The log of each script is retained until it is enabled, so that the
+	 * log is printed in the same order as when the scripts are loaded one after another. Function signatures must already have been loaded by
+	 * {@link #loadStructure(Config)}.
+	 * 
+	 * @return The parse tasks in the same order as the scripts
+	 */
+	private static List<ForkJoinTask<ParsedScript>> parseScripts(final List<Config> configs) {
+		final List<ForkJoinTask<ParsedScript>> tasks = new ArrayList<>(configs.size());
+		for (final Config config : configs) {
+			tasks.add(ForkJoinPool.commonPool().submit(() -> new ParserInstance().run(() -> {
+				final RetainingLogHandler log = SkriptLogger.startRetainingLog();
+				final ParsedScript script = parseScript(config, null);
+				script.log = log;
+				return script;
+			})));
+		}
+		return tasks;
+	}
+	
+	/**
+	 * Parses one script with the current thread's {@link ParserInstance}.
+	 * @param config Config for script to be parsed.
+	 * @param sections The top-level sections of the script if it is reloaded by {@link #reloadScript(File)}. Sections that were
+	 * {@link ScriptSection#kept kept} are not parsed again, apart from options, aliases and variables.
+	 * @return The parsed script, to be enabled with {@link #enableScript(ParsedScript)}
+	 */
+	private static ParsedScript parseScript(final Config config, final @Nullable List<ScriptSection> sections) {
+		final ParsedScript script = new ParsedScript(config);
+		if (sections != null)
+			script.sections.addAll(sections);
+		final List<ScriptCommand> commands = script.commands;
+		final List<Function<?>> functions = script.functions;
+		final List<ParsedEventData> events = script.events;
+		final ScriptInfo i = script.info;
 		i.files = 1; // Loading one script
 		
+		final ParseCache cache = ParseCache.load(config);
 		try {
-			if (SkriptConfig.keepConfigsLoaded.value())
-				SkriptConfig.configs.add(config);
-			
-			currentOptions.clear();
-			currentScript = config;
+			ParserInstance.get().getCurrentOptions().clear();
+			ParserInstance.get().setParseCache(cache);
+			setCurrentScript(config);
 
 			/*
 			 * If editing this class, please remember to call this event
@@ -544,6 +799,7 @@ final public class ScriptLoader {
 			final CountingLogHandler numErrors = SkriptLogger.startLogHandler(new CountingLogHandler(SkriptLogger.SEVERE));
 			
 			try {
+				int sectionIndex = 0;
 				for (final Node cnode : config.getMainNode()) {
 					if (!(cnode instanceof SectionNode)) {
 						Skript.error("invalid line - all code has to be put into triggers");
@@ -551,6 +807,13 @@ final public class ScriptLoader {
 					}
 					
 					final SectionNode node = ((SectionNode) cnode);
+					final ScriptSection section;
+					if (sections != null) {
+						section = sections.get(sectionIndex++);
+					} else {
+						section = new ScriptSection(node);
+						script.sections.add(section);
+					}
 					String event = node.getKey();
 					if (event == null)
 						continue;
@@ -570,7 +833,7 @@ final public class ScriptLoader {
 								Skript.error("invalid line in options");
 								continue;
 							}
-							currentOptions.put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
+							ParserInstance.get().getCurrentOptions().put(((EntryNode) n).getKey(), ((EntryNode) n).getValue());
 						}
 						continue;
 					} else if (event.equalsIgnoreCase("variables")) {
@@ -642,6 +905,13 @@ final public class ScriptLoader {
 						continue;
 					}
 					
+					if (section.kept) {
+						final ScriptCommand c = section.command;
+						if (c != null)
+							i.commandNames.add(c.getName());
+						continue;
+					}
+					
 					if (!SkriptParser.validateLine(event))
 						continue;
 					
@@ -652,6 +922,7 @@ final public class ScriptLoader {
 						final ScriptCommand c = Commands.loadCommand(node, false);
 						if (c != null) {
 							commands.add(c);
+							section.command = c;
 							i.commandNames.add(c.getName()); // For tab completion
 						}
 						i.commands++;
@@ -691,7 +962,7 @@ final public class ScriptLoader {
 					
 					try {
 						setCurrentEvent("" + parsedEvent.getFirst().getName().toLowerCase(Locale.ENGLISH), parsedEvent.getFirst().events);
-						events.add(new ParsedEventData(parsedEvent, event, node, loadItems(node)));
+						events.add(new ParsedEventData(parsedEvent, event, node, loadItems(node), section));
 					} finally {
 						deleteCurrentEvent();
 					}
@@ -706,17 +977,41 @@ final public class ScriptLoader {
 				if (Skript.logHigh())
 					Skript.info("loaded " + i.triggers + " trigger" + (i.triggers == 1 ? "" : "s")+ " and " + i.commands + " command" + (i.commands == 1 ? "" : "s") + " from '" + config.getFileName() + "'");
 				
-				currentScript = null;
+				setCurrentScript(null);
 				Aliases.setScriptAliases(null); // These are per-script
 			} finally {
 				numErrors.stop();
 			}
+			
+			if (cache != null)
+				cache.save();
 		} catch (final Exception e) {
 			Skript.exception(e, "Could not load " + config.getFileName());
 		} finally {
+			ParserInstance.get().setParseCache(null);
 			SkriptLogger.setNode(null);
 		}
 		
+		return script;
+	}
+	
+	/**
+	 * Enables a parsed script, printing its log first if it was parsed in parallel.
+	 * @param script The parsed script.
+	 * @return Info about script that is loaded
+	 */
+	private static ScriptInfo enableScript(final ParsedScript script) {
+		final RetainingLogHandler log = script.log;
+		if (log != null)
+			log.printLog();
+		
+		final Config config = script.config;
+		final List<ScriptCommand> commands = script.commands;
+		final List<ParsedEventData> events = script.events;
+		
+		if (SkriptConfig.keepConfigsLoaded.value())
+			SkriptConfig.configs.add(config);
+		
 		// In always sync task, enable stuff
 		Callable<Void> callable = new Callable<Void>() {
 
@@ -731,6 +1026,16 @@ final public class ScriptLoader {
 						unloadScript_(file);
 				}
 				
+				// Unload what changed if only parts of the script are reloaded
+				for (ScriptSection section : script.removedSections) {
+					final Trigger trigger = section.trigger;
+					if (trigger != null)
+						SkriptEventHandler.removeTrigger(trigger);
+					final ScriptCommand command = section.command;
+					if (command != null)
+						Commands.unregisterCommand(command);
+				}
+				
 				// Now, enable everything!
 				for (ScriptCommand command : commands) {
 					assert command != null;
@@ -748,6 +1053,7 @@ final public class ScriptLoader {
 					} finally {
 						deleteCurrentEvent();
 					}
+					event.section.trigger = trigger;
 					
 					if (event.info.getSecond() instanceof SelfRegisteringSkriptEvent) {
 						((SelfRegisteringSkriptEvent) event.info.getSecond()).register(trigger);
@@ -759,8 +1065,22 @@ final public class ScriptLoader {
 					deleteCurrentEvent();
 				}
 				
+				// Sections that were kept may have moved
+				for (ScriptSection section : script.sections) {
+					final Trigger trigger = section.trigger;
+					if (section.kept && trigger != null) {
+						trigger.setLineNumber(section.line);
+						trigger.setDebugLabel(config.getFileName() + ": line " + section.line);
+					}
+				}
+				
 				// Add to loaded files to use for future reloads
 				loadedFiles.add(file);
+				if (file != null) {
+					synchronized (scriptSections) {
+						scriptSections.put(file, script.sections);
+					}
+				}
 				
 				return null;
 			}
@@ -775,7 +1095,7 @@ final public class ScriptLoader {
 			}
 		}
 		
-		return i;
+		return script.info;
 	}
 	
 	/**
@@ -901,7 +1221,7 @@ final public class ScriptLoader {
 					}
 				}
 				
-				currentScript = null;
+				setCurrentScript(null);
 			} finally {
 				//numErrors.stop();
 			}
@@ -964,6 +1284,9 @@ final public class ScriptLoader {
 			}
 			
 			loadedFiles.remove(script); // We just unloaded it, so...
+			synchronized (scriptSections) {
+				scriptSections.remove(script);
+			}
 			return info; // Return how much we unloaded
 		}
 		
@@ -972,29 +1295,42 @@ final public class ScriptLoader {
 
 	/**
 	 * Replaces options in a string.
+	 * <p>
+	 * This is called for every line of every script, most of which don't use any options, so this searches the string directly instead of using a regex.
+	 * Options are written like <tt>{@name}</tt>, where the name is everything up to the first closing brace and must not be empty.
 	 */
 	public static String replaceOptions(final String s) {
-		final String r = StringUtils.replaceAll(s, "\\{@(.+?)\\}", new Callback<String, Matcher>() {
-			@Override
-			@Nullable
-			public String run(final Matcher m) {
-				final String option = currentOptions.get(m.group(1));
-				if (option == null) {
-					Skript.error("undefined option " + m.group());
-					return m.group();
-				}
-				return Matcher.quoteReplacement(option);
+		int start = s.indexOf("{@");
+		if (start == -1)
+			return s;
+		final Map<String, String> options = ParserInstance.get().getCurrentOptions();
+		final StringBuilder b = new StringBuilder(s.length());
+		int last = 0;
+		while (start != -1) {
+			final int end = s.indexOf('}', start + 3);
+			if (end == -1)
+				break;
+			final String option = options.get(s.substring(start + 2, end));
+			if (option == null) {
+				Skript.error("undefined option " + s.substring(start, end + 1));
+			} else {
+				b.append(s, last, start).append(option);
+				last = end + 1;
 			}
-		});
-		assert r != null;
-		return r;
+			start = s.indexOf("{@", end + 1);
+		}
+		if (last == 0)
+			return s;
+		b.append(s, last, s.length());
+		return "" + b;
 	}
 	
 	@SuppressWarnings("unchecked")
 	public static ArrayList<TriggerItem> loadItems(final SectionNode node) {
 		
+		final ParserInstance parser = ParserInstance.get();
 		if (Skript.debug())
-			indentation += "    ";
+			parser.setIndentation(parser.getIndentation() + "    ");
 		
 		final ArrayList<TriggerItem> items = new ArrayList<>();
 		
@@ -1011,10 +1347,10 @@ final public class ScriptLoader {
 				if (stmt == null)
 					continue;
 				if (Skript.debug() || n.debug())
-					Skript.debug(indentation + stmt.toString(null, true));
+					Skript.debug(parser.getIndentation() + stmt.toString(null, true));
 				items.add(stmt);
 				if (stmt instanceof Delay)
-					hasDelayBefore = Kleenean.TRUE;
+					parser.setHasDelayBefore(Kleenean.TRUE);
 			} else if (n instanceof SectionNode) {
 				String name = replaceOptions("" + n.getKey());
 				if (!SkriptParser.validateLine(name))
@@ -1042,33 +1378,33 @@ final public class ScriptLoader {
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "loop " + loopedExpr.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(parser.getIndentation() + "loop " + loopedExpr.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = parser.getHasDelayBefore();
 					items.add(new Loop(loopedExpr, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && parser.getHasDelayBefore() != Kleenean.FALSE)
+						parser.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (StringUtils.startsWithIgnoreCase(name, "while ")) {
 					final String l = "" + name.substring("while ".length());
 					final Condition c = Condition.parse(l, "Can't understand this condition: " + l);
 					if (c == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "while " + c.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(parser.getIndentation() + "while " + c.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = parser.getHasDelayBefore();
 					items.add(new While(c, (SectionNode) n));
-					if (hadDelayBefore != Kleenean.TRUE && hasDelayBefore != Kleenean.FALSE)
-						hasDelayBefore = Kleenean.UNKNOWN;
+					if (hadDelayBefore != Kleenean.TRUE && parser.getHasDelayBefore() != Kleenean.FALSE)
+						parser.setHasDelayBefore(Kleenean.UNKNOWN);
 				} else if (name.equalsIgnoreCase("else")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else' has to be placed just after an 'if' or 'else if' section");
 						continue;
 					}
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else:");
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(parser.getIndentation() + "else:");
+					final Kleenean hadDelayAfterLastIf = parser.getHasDelayBefore();
+					parser.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseClause((SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore));
+					parser.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(parser.getHasDelayBefore())));
 				} else if (StringUtils.startsWithIgnoreCase(name, "else if ")) {
 					if (items.size() == 0 || !(items.get(items.size() - 1) instanceof Conditional) || ((Conditional) items.get(items.size() - 1)).hasElseClause()) {
 						Skript.error("'else if' has to be placed just after another 'if' or 'else if' section");
@@ -1079,11 +1415,11 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + "else if " + cond.toString(null, true));
-					final Kleenean hadDelayAfterLastIf = hasDelayBefore;
-					hasDelayBefore = hadDelayBeforeLastIf;
+						Skript.debug(parser.getIndentation() + "else if " + cond.toString(null, true));
+					final Kleenean hadDelayAfterLastIf = parser.getHasDelayBefore();
+					parser.setHasDelayBefore(hadDelayBeforeLastIf);
 					((Conditional) items.get(items.size() - 1)).loadElseIf(cond, (SectionNode) n);
-					hasDelayBefore = hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(hasDelayBefore.and(Kleenean.UNKNOWN)));
+					parser.setHasDelayBefore(hadDelayBeforeLastIf.or(hadDelayAfterLastIf.and(parser.getHasDelayBefore().and(Kleenean.UNKNOWN))));
 				} else {
 					if (StringUtils.startsWithIgnoreCase(name, "if "))
 						name = "" + name.substring(3);
@@ -1091,11 +1427,11 @@ final public class ScriptLoader {
 					if (cond == null)
 						continue;
 					if (Skript.debug() || n.debug())
-						Skript.debug(indentation + cond.toString(null, true) + ":");
-					final Kleenean hadDelayBefore = hasDelayBefore;
+						Skript.debug(parser.getIndentation() + cond.toString(null, true) + ":");
+					final Kleenean hadDelayBefore = parser.getHasDelayBefore();
 					hadDelayBeforeLastIf = hadDelayBefore;
 					items.add(new Conditional(cond, (SectionNode) n));
-					hasDelayBefore = hadDelayBefore.or(hasDelayBefore.and(Kleenean.UNKNOWN));
+					parser.setHasDelayBefore(hadDelayBefore.or(parser.getHasDelayBefore().and(Kleenean.UNKNOWN)));
 				}
 				
 				// Destroy these conditional type hints
@@ -1109,7 +1445,7 @@ final public class ScriptLoader {
 		SkriptLogger.setNode(node);
 		
 		if (Skript.debug())
-			indentation = "" + indentation.substring(0, indentation.length() - 4);
+			parser.setIndentation("" + parser.getIndentation().substring(0, parser.getIndentation().length() - 4));
 		
 		return items;
 	}
@@ -1169,12 +1505,12 @@ final public class ScriptLoader {
 	}
 	
 	public static boolean isCurrentEvent(final @Nullable Class<? extends Event> event) {
-		return CollectionUtils.containsSuperclass(currentEvents, event);
+		return CollectionUtils.containsSuperclass(ParserInstance.get().getCurrentEvents(), event);
 	}
 	
 	@SafeVarargs
 	public static boolean isCurrentEvent(final Class<? extends Event>... events) {
-		return CollectionUtils.containsAnySuperclass(currentEvents, events);
+		return CollectionUtils.containsAnySuperclass(ParserInstance.get().getCurrentEvents(), events);
 	}
 	
 	/**
@@ -1182,7 +1518,7 @@ final public class ScriptLoader {
 	 */
 	@Nullable
 	public static Class<? extends Event>[] getCurrentEvents() {
-		return currentEvents;
+		return ParserInstance.get().getCurrentEvents();
 	}
 	
 }
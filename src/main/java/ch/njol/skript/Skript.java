@@ -105,9 +105,12 @@ import ch.njol.skript.lang.Effect;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionInfo;
 import ch.njol.skript.lang.ExpressionType;
+import ch.njol.skript.lang.ParseCache;
 import ch.njol.skript.lang.SkriptEvent;
 import ch.njol.skript.lang.SkriptEventInfo;
+import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Statement;
+import ch.njol.skript.lang.SyntaxElementIndex;
 import ch.njol.skript.lang.SyntaxElementInfo;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.VariableString;
@@ -1169,6 +1172,13 @@ public final class Skript extends JavaPlugin implements Listener {
 		Converters.createMissingConverters();
 		
 		Classes.onRegistrationsStop();
+		
+		final List<SyntaxElementInfo<?>> syntaxElements = new ArrayList<>(statements);
+		syntaxElements.addAll(expressions);
+		syntaxElements.addAll(events);
+		SkriptParser.resolvePatterns(syntaxElements);
+		SyntaxElementIndex.build(syntaxElements);
+		ParseCache.init(syntaxElements);
 	}
 	
 	// ================ ADDONS ================
@@ -1454,7 +1464,7 @@ public final class Skript extends JavaPlugin implements Listener {
 	 * @param quality
 	 */
 	public static void error(final String error, final ErrorQuality quality) {
-		SkriptLogger.log(new LogEntry(SkriptLogger.SEVERE, quality, error));
+		SkriptLogger.log(SkriptLogger.SEVERE, quality, error);
 	}
 	
 	private final static String EXCEPTION_PREFIX = "#!#! ";
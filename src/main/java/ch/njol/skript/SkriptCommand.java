@@ -51,6 +51,8 @@ import ch.njol.skript.util.Color;
 import ch.njol.skript.util.ExceptionUtils;
 import ch.njol.skript.util.FileUtils;
 import ch.njol.skript.util.SkriptColor;
+import ch.njol.skript.variables.Variables;
+import ch.njol.skript.variables.VariablesStorage;
 import ch.njol.util.StringUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -104,7 +106,8 @@ public class SkriptCommand implements CommandExecutor {
 //					.add("set", "Creates a new variable or changes an existing one")
 //					.add("delete", "Deletes a variable")
 //					.add("find", "Find variables")
-			).add("help");
+			).add("databases")
+			.add("help");
 	
 	static {
 		if (new File(Skript.getInstance().getDataFolder() + "/doc-templates").exists()) {
@@ -186,10 +189,7 @@ public class SkriptCommand implements CommandExecutor {
 							return true;
 						}
 						reloading(sender, "script", f.getName());
-						if (!ScriptLoader.loadAsync)
-							ScriptLoader.unloadScript(f);
-						Config config = ScriptLoader.loadStructure(f);
-						ScriptLoader.loadScripts(config);
+						ScriptLoader.reloadScript(f);
 						reloaded(sender, r, "script", f.getName());
 					} else {
 						reloading(sender, "scripts in folder", f.getName());
@@ -334,6 +334,17 @@ public class SkriptCommand implements CommandExecutor {
 				} else if (args[1].equalsIgnoreCase("download")) {
 					updater.updateCheck(sender);
 				}
+			} else if (args[0].equalsIgnoreCase("databases")) {
+				final List<VariablesStorage> storages = Variables.getStorages();
+				if (storages.isEmpty()) {
+					info(sender, "databases.none");
+					return true;
+				}
+				for (final VariablesStorage s : storages) {
+					final long received = s.getReceivedChanges(), written = s.getWrittenChanges();
+					final double coalesced = received == 0 ? 0 : 100. * (received - written) / received;
+					info(sender, "databases.stats", s.getDatabaseName(), received, written, StringUtils.toString(coalesced, 1));
+				}
 			} else if (args[0].equalsIgnoreCase("help")) {
 				skriptCommandHelp.showHelp(sender);
 			} else if (args[0].equalsIgnoreCase("gen-docs")) {
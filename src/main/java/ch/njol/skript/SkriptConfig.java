@@ -37,11 +37,14 @@ import ch.njol.skript.config.EnumParser;
 import ch.njol.skript.config.Option;
 import ch.njol.skript.config.OptionSection;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ParseCache;
+import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.VariableString;
 import ch.njol.skript.lang.function.Function;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.log.Verbosity;
+import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.timings.SkriptTimings;
 import ch.njol.skript.update.ReleaseChannel;
 import ch.njol.skript.util.FileUtils;
@@ -205,6 +208,15 @@ public abstract class SkriptConfig {
 	
 	public final static Option<Boolean> disableVariableConflictWarnings = new Option<Boolean>("disable variable conflict warnings", false);
 	public final static Option<Boolean> disableObjectCannotBeSavedWarnings = new Option<Boolean>("disable variable will not be saved warnings", false);
+	public final static Option<Integer> variableVerificationInterval = new Option<Integer>("variable verification interval", 0)
+			.optional(true)
+			.setter(new Setter<Integer>() {
+
+				@Override
+				public void set(Integer t) {
+					Classes.verificationInterval = t;
+				}
+			});
 	public final static Option<Boolean> disableMissingAndOrWarnings = new Option<Boolean>("disable variable missing and/or warnings", false);
 	public final static Option<Boolean> disableVariableStartingWithExpressionWarnings = new Option<Boolean>("disable starting a variable's name with an expression warnings", false)
 			.setter(new Setter<Boolean>() {
@@ -310,6 +322,39 @@ public abstract class SkriptConfig {
 			})
 			.optional(true);
 	
+	public final static Option<Boolean> parallelLoaderEnabled = new Option<Boolean>("parallel script loading", false)
+			.setter(new Setter<Boolean>() {
+
+				@Override
+				public void set(Boolean t) {
+					ScriptLoader.loadParallel = t;
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> parseCacheEnabled = new Option<Boolean>("cache parsed scripts", false)
+			.setter(new Setter<Boolean>() {
+
+				@Override
+				public void set(Boolean t) {
+					ParseCache.setEnabled(t);
+				}
+				
+			})
+			.optional(true);
+	
+	public final static Option<Boolean> compileTriggers = new Option<Boolean>("compile triggers", false)
+			.setter(new Setter<Boolean>() {
+
+				@Override
+				public void set(Boolean t) {
+					Trigger.compileTriggers = t;
+				}
+				
+			})
+			.optional(true);
+	
 	public final static Option<Boolean> allowUnsafePlatforms = new Option<Boolean>("allow unsafe platforms", false)
 			.optional(true);
 
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -62,6 +63,11 @@ public abstract class SkriptEventHandler {
 	
 	private final static List<Trigger> selfRegisteredTriggers = new ArrayList<>();
 	
+	/**
+	 * The events each trigger has been added for, by script, so that the triggers of a script can be removed without searching all triggers
+	 */
+	private final static Map<File, Map<Trigger, Class<? extends Event>[]>> scriptTriggers = new HashMap<>();
+	
 	private static Iterator<Trigger> getTriggers(final Class<? extends Event> event) {
 		return new Iterator<Trigger>() {
 			@Nullable
@@ -200,6 +206,35 @@ public abstract class SkriptEventHandler {
 				triggers.put(e, ts = new ArrayList<>());
 			ts.add(trigger);
 		}
+		Map<Trigger, Class<? extends Event>[]> ts = scriptTriggers.get(trigger.getScript());
+		if (ts == null)
+			scriptTriggers.put(trigger.getScript(), ts = new LinkedHashMap<>());
+		ts.put(trigger, events);
+	}
+	
+	private static void removeTrigger(final Trigger trigger, final Class<? extends Event>[] events) {
+		for (final Class<? extends Event> e : events) {
+			final List<Trigger> ts = triggers.get(e);
+			if (ts == null)
+				continue;
+			ts.remove(trigger);
+			if (ts.isEmpty())
+				triggers.remove(e);
+		}
+	}
+	
+	/**
+	 * Removes a single trigger added with {@link #addTrigger(Class[], Trigger)} or {@link #addSelfRegisteringTrigger(Trigger)}.
+	 */
+	static void removeTrigger(final Trigger trigger) {
+		if (selfRegisteredTriggers.remove(trigger)) {
+			((SelfRegisteringSkriptEvent) trigger.getEvent()).unregister(trigger);
+			return;
+		}
+		final Map<Trigger, Class<? extends Event>[]> ts = scriptTriggers.get(trigger.getScript());
+		final Class<? extends Event>[] events = ts == null ? null : ts.remove(trigger);
+		if (events != null)
+			removeTrigger(trigger, events);
 	}
 	
 	/**
@@ -216,17 +251,11 @@ public abstract class SkriptEventHandler {
 		final ScriptInfo info = new ScriptInfo();
 		info.files = 1;
 		
-		final Iterator<List<Trigger>> triggersIter = SkriptEventHandler.triggers.values().iterator();
-		while (triggersIter.hasNext()) {
-			final List<Trigger> ts = triggersIter.next();
-			for (int i = 0; i < ts.size(); i++) {
-				if (script.equals(ts.get(i).getScript())) {
-					info.triggers++;
-					ts.remove(i);
-					i--;
-					if (ts.isEmpty())
-						triggersIter.remove();
-				}
+		final Map<Trigger, Class<? extends Event>[]> ts = scriptTriggers.remove(script);
+		if (ts != null) {
+			for (final Map.Entry<Trigger, Class<? extends Event>[]> e : ts.entrySet()) {
+				info.triggers++;
+				removeTrigger(e.getKey(), e.getValue());
 			}
 		}
 		
@@ -247,6 +276,7 @@ public abstract class SkriptEventHandler {
 	
 	static void removeAllTriggers() {
 		triggers.clear();
+		scriptTriggers.clear();
 		for (final Trigger t : selfRegisteredTriggers)
 			((SelfRegisteringSkriptEvent) t.getEvent()).unregisterAll();
 		selfRegisteredTriggers.clear();
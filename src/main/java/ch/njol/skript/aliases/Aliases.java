@@ -44,6 +44,7 @@ import ch.njol.skript.config.Config;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.entity.EntityData;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.localization.ArgsMessage;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -60,16 +61,10 @@ public abstract class Aliases {
 	private static final AliasesProvider provider = createProvider(10000, null);
 	private static final AliasesParser parser = createParser(provider);
 	
-	/**
-	 * Current script aliases.
-	 */
-	@Nullable
-	private static ScriptAliases scriptAliases;
-	
 	@Nullable
 	private static ItemType getAlias_i(final String s) {
 		// Check script aliases first
-		ScriptAliases aliases = scriptAliases;
+		ScriptAliases aliases = ParserInstance.get().getScriptAliases();
 		if (aliases != null) {
 			return aliases.provider.getAlias(s); // Delegates to global provider if needed
 		}
@@ -183,7 +178,7 @@ public abstract class Aliases {
 	@Nullable
 	private static MaterialName getMaterialNameData(ItemData type) {
 		// Check script aliases first
-		ScriptAliases aliases = scriptAliases;
+		ScriptAliases aliases = ParserInstance.get().getScriptAliases();
 		if (aliases != null) {
 			return aliases.provider.getMaterialName(type);
 		}
@@ -512,7 +507,7 @@ public abstract class Aliases {
 	 */
 	@Nullable
 	public static String getMinecraftId(ItemData data) {
-		ScriptAliases aliases = scriptAliases;
+		ScriptAliases aliases = ParserInstance.get().getScriptAliases();
 		if (aliases != null) {
 			return aliases.provider.getMinecraftId(data);
 		}
@@ -527,7 +522,7 @@ public abstract class Aliases {
 	 */
 	@Nullable
 	public static EntityData<?> getRelatedEntity(ItemData data) {
-		ScriptAliases aliases = scriptAliases;
+		ScriptAliases aliases = ParserInstance.get().getScriptAliases();
 		if (aliases != null) {
 			return aliases.provider.getRelatedEntity(data);
 		}
@@ -600,6 +595,6 @@ public abstract class Aliases {
 	 * @param aliases Script aliases.
 	 */
 	public static void setScriptAliases(@Nullable ScriptAliases aliases) {
-		scriptAliases = aliases;
+		ParserInstance.get().setScriptAliases(aliases);
 	}
 }
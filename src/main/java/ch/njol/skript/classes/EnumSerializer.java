@@ -53,6 +53,11 @@ public class EnumSerializer<T extends Enum<T>> extends Serializer<T> {
 		return false;
 	}
 	
+	@Override
+	public boolean mustSyncSerialization() {
+		return false;
+	}
+	
 	@Override
 	public boolean canBeInstantiated() {
 		assert false;
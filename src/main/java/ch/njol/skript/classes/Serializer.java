@@ -103,12 +103,25 @@ public abstract class Serializer<T> extends YggdrasilSerializer<T> {
 	public abstract void deserialize(T o, Fields f) throws StreamCorruptedException, NotSerializableException;
 	
 	/**
-	 * Not currently used (everything happens on Bukkit's main thread).
+	 * Variables are deserialised on multiple threads while they are loaded unless this returns true.
 	 * 
 	 * @return Whether deserialisation must be done on Bukkit's main thread.
 	 */
 	public abstract boolean mustSyncDeserialization();
 	
+	/**
+	 * Values are usually serialised on Bukkit's main thread when they are stored in a variable. If this returns false, they are serialised later on the thread that saves
+	 * the variables instead.
+	 * <p>
+	 * Only return false if objects of this class cannot change after they have been stored in a variable (e.g. if they are immutable), as they will be serialised some time
+	 * afterwards, and if {@link #serialize(Object)} does not use any API that must be called from the main thread.
+	 * 
+	 * @return Whether serialisation must be done on Bukkit's main thread.
+	 */
+	public boolean mustSyncSerialization() {
+		return true;
+	}
+	
 	@Override
 	public boolean canBeInstantiated(final Class<? extends T> c) {
 		assert info != null && info.getC().isAssignableFrom(c);
@@ -132,6 +132,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Long.class, "long")
@@ -195,6 +200,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Integer.class, "integer")
@@ -256,6 +266,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Double.class, "double")
@@ -323,6 +338,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Float.class, "float")
@@ -388,6 +408,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Boolean.class, "boolean")
@@ -459,6 +484,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}));
 		
 		Classes.registerClass(new ClassInfo<>(Short.class, "short")
@@ -520,6 +550,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(Byte.class, "byte")
@@ -581,6 +616,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}).math(Number.class, new NumberArithmetic()));
 		
 		Classes.registerClass(new ClassInfo<>(String.class, "string")
@@ -672,6 +712,11 @@ public class JavaClasses {
 					public boolean mustSyncDeserialization() {
 						return false;
 					}
+					
+					@Override
+					public boolean mustSyncSerialization() {
+						return false;
+					}
 				}));
 	}
 }
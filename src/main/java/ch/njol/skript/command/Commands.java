@@ -67,6 +67,7 @@ import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.TriggerItem;
 import ch.njol.skript.lang.VariableString;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleLiteral;
 import ch.njol.skript.localization.ArgsMessage;
 import ch.njol.skript.localization.Language;
@@ -145,8 +146,17 @@ public abstract class Commands {
 			.addEntry("executable by", true)
 			.addSection("trigger", false);
 	
+	/**
+	 * @return The arguments of the command that is currently being parsed by the current thread's {@link ParserInstance}, or null if no command is being parsed
+	 */
 	@Nullable
-	public static List<Argument<?>> currentArguments = null;
+	public static List<Argument<?>> getCurrentArguments() {
+		return ParserInstance.get().getCurrentArguments();
+	}
+	
+	public static void setCurrentArguments(final @Nullable List<Argument<?>> currentArguments) {
+		ParserInstance.get().setCurrentArguments(currentArguments);
+	}
 	
 	@SuppressWarnings("null")
 	private final static Pattern escape = Pattern.compile("[" + Pattern.quote("(|)<>%\\") + "]");
@@ -306,6 +316,19 @@ public abstract class Commands {
 	
 	@Nullable
 	public static ScriptCommand loadCommand(final SectionNode node, final boolean alsoRegister) {
+		try {
+			return loadCommand_i(node, alsoRegister);
+		} finally {
+			setCurrentArguments(null);
+		}
+	}
+	
+	/**
+	 * Sets the {@link #getCurrentArguments() current arguments} once the arguments are parsed, so that their default values, the messages and the
+	 * trigger of the command can use them. {@link #loadCommand(SectionNode, boolean)} clears them again, including if the command fails to load.
+	 */
+	@Nullable
+	private static ScriptCommand loadCommand_i(final SectionNode node, final boolean alsoRegister) {
 		final String key = node.getKey();
 		if (key == null)
 			return null;
@@ -343,7 +366,8 @@ public abstract class Commands {
 		final String arguments = m.group(3) == null ? "" : m.group(3);
 		final StringBuilder pattern = new StringBuilder();
 		
-		List<Argument<?>> currentArguments = Commands.currentArguments = new ArrayList<>(); //Mirre
+		List<Argument<?>> currentArguments = new ArrayList<>(); //Mirre
+		setCurrentArguments(currentArguments);
 		m = argumentPattern.matcher(arguments);
 		int lastEnd = 0;
 		int optionals = 0;
@@ -482,15 +506,9 @@ public abstract class Commands {
 			return null;
 		}
 		
-		Commands.currentArguments = currentArguments;
-		final ScriptCommand c;
-		try {
-			c = new ScriptCommand(config, command, "" + pattern.toString(), currentArguments, description, usage,
-					aliases, permission, permissionMessage, cooldown, cooldownMessage, cooldownBypass, cooldownStorage,
-					executableBy, ScriptLoader.loadItems(trigger));
-		} finally {
-			Commands.currentArguments = null;
-		}
+		final ScriptCommand c = new ScriptCommand(config, command, "" + pattern.toString(), currentArguments, description, usage,
+				aliases, permission, permissionMessage, cooldown, cooldownMessage, cooldownBypass, cooldownStorage,
+				executableBy, ScriptLoader.loadItems(trigger));
 		
 		if (alsoRegister)
 			registerCommand(c);
@@ -533,17 +551,29 @@ public abstract class Commands {
 			final ScriptCommand c = commandsIter.next();
 			if (script.equals(c.getScript())) {
 				numCommands++;
-				c.unregisterHelp();
-				if (commandMap != null) {
-					assert cmKnownCommands != null;// && cmAliases != null;
-					c.unregister(commandMap, cmKnownCommands, cmAliases);
-				}
+				unregister(c);
 				commandsIter.remove();
 			}
 		}
 		return numCommands;
 	}
 	
+	/**
+	 * Unregisters a single command registered with {@link #registerCommand(ScriptCommand)}.
+	 */
+	public static void unregisterCommand(final ScriptCommand command) {
+		if (commands.values().removeIf(c -> c == command)) // also removes the aliases
+			unregister(command);
+	}
+	
+	private static void unregister(final ScriptCommand command) {
+		command.unregisterHelp();
+		if (commandMap != null) {
+			assert cmKnownCommands != null;// && cmAliases != null;
+			command.unregister(commandMap, cmKnownCommands, cmAliases);
+		}
+	}
+	
 	private static boolean registeredListeners = false;
 	
 	public static void registerListeners() {
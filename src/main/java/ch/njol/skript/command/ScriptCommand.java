@@ -54,6 +54,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import ch.njol.skript.Skript;
 import ch.njol.skript.SkriptConfig;
 import ch.njol.skript.command.Commands.CommandAliasHelpTopic;
+import ch.njol.skript.lang.CompiledPattern;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Trigger;
@@ -103,6 +104,7 @@ public class ScriptCommand implements TabExecutor {
 	final Trigger trigger;
 
 	private final String pattern;
+	private final CompiledPattern compiledPattern;
 	private final List<Argument<?>> arguments;
 
 	public final static int PLAYERS = 0x1, CONSOLE = 0x2, BOTH = PLAYERS | CONSOLE;
@@ -160,6 +162,7 @@ public class ScriptCommand implements TabExecutor {
 		this.executableBy = executableBy;
 
 		this.pattern = pattern;
+		compiledPattern = new CompiledPattern(pattern);
 		this.arguments = arguments;
 
 		trigger = new Trigger(script, "command /" + name, new SimpleEvent(), items);
@@ -316,6 +319,13 @@ public class ScriptCommand implements TabExecutor {
 		return pattern;
 	}
 
+	/**
+	 * @return The {@link #getPattern() pattern} of this command, compiled once when the command was created
+	 */
+	public CompiledPattern getCompiledPattern() {
+		return compiledPattern;
+	}
+
 	@Nullable
 	private transient Command overridden = null;
 	private transient Map<String, Command> overriddenAliases = new HashMap<>();
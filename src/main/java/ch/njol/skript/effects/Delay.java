@@ -33,6 +33,7 @@ import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
 import ch.njol.skript.lang.Effect;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.Trigger;
@@ -80,7 +81,7 @@ public class Delay extends Effect {
 		final long start = Skript.debug() ? System.nanoTime() : 0;
 		final TriggerItem next = getNext();
 		if (next != null) {
-			delayed.add(e);
+			addDelayedEvent(e);
 			final Timespan d = duration.getSingle(e);
 			if (d == null)
 				return null;
@@ -116,15 +117,21 @@ public class Delay extends Effect {
 		return null;
 	}
 
+	/**
+	 * @deprecated Whether an event is delayed is stored in its {@link ExecutionFrame}, use {@link #addDelayedEvent(Event)} and {@link #isDelayed(Event)}.
+	 *             Events added to this set are still considered to be delayed.
+	 */
+	@Deprecated
 	@SuppressWarnings("null")
 	protected final static Set<Event> delayed = Collections.newSetFromMap(new WeakHashMap<Event, Boolean>());
 
 	public static boolean isDelayed(final Event e) {
-		return delayed.contains(e);
+		final ExecutionFrame frame = ExecutionFrame.getIfExists(e);
+		return frame != null && frame.isDelayed() || !delayed.isEmpty() && delayed.contains(e);
 	}
 
 	public static void addDelayedEvent(Event event){
-		delayed.add(event);
+		ExecutionFrame.get(event).setDelayed();
 	}
 
 	@Override
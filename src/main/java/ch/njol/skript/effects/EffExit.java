@@ -72,7 +72,7 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 	public boolean init(final Expression<?>[] exprs, final int matchedPattern, final Kleenean isDelayed, final ParseResult parser) {
 		switch (matchedPattern) {
 			case 0:
-				breakLevels = ScriptLoader.currentSections.size() + 1;
+				breakLevels = ScriptLoader.getCurrentSections().size() + 1;
 				type = EVERYTHING;
 				break;
 			case 1:
@@ -101,9 +101,9 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 	
 	private static int numLevels(final int type) {
 		if (type == EVERYTHING)
-			return ScriptLoader.currentSections.size();
+			return ScriptLoader.getCurrentSections().size();
 		int r = 0;
-		for (final TriggerSection s : ScriptLoader.currentSections) {
+		for (final TriggerSection s : ScriptLoader.getCurrentSections()) {
 			if (type == CONDITIONALS ? s instanceof Conditional : s instanceof Loop || s instanceof While)
 				r++;
 		}
@@ -125,7 +125,7 @@ public class EffExit extends Effect { // TODO [code style] warn user about code
 				i--;
 		}
 		if (n instanceof Loop) {
-			((Loop) n).getCurrentIter().remove(e);
+			((Loop) n).exit(e);
 		}
 		return n instanceof Loop ? ((Loop) n).getActualNext() : n instanceof While ? ((While) n).getActualNext() : n.getNext();
 	}
@@ -51,7 +51,7 @@ public class EffSuppressWarnings extends Effect {
 
 	@Override
 	public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, SkriptParser.ParseResult parseResult) {
-		Config cs = ScriptLoader.currentScript;
+		Config cs = ScriptLoader.getCurrentScript();
 		if (cs == null) {
 			Skript.error("You can only suppress warnings for script files!");
 			return false;
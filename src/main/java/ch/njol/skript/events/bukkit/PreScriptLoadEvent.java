@@ -53,7 +53,7 @@ public class PreScriptLoadEvent extends Event {
 
     /**
      * This is usually, but may not be, the same
-     * as {@link ScriptLoader#currentScript}
+     * as {@link ScriptLoader#getCurrentScript()}
      * @return The {@link Config} of the loading script
      */
     public Config getScript() {
@@ -83,7 +83,7 @@ public class ExprDrops extends SimpleExpression<ItemType> {
 	@Override
 	@Nullable
 	public Class<?>[] acceptChange(ChangeMode mode) {
-		if (ScriptLoader.hasDelayBefore.isTrue()) {
+		if (ScriptLoader.getHasDelayBefore().isTrue()) {
 			Skript.error("Can't change the drops anymore after the event has already passed");
 			return null;
 		}
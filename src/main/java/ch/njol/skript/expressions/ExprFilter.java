@@ -40,6 +40,7 @@ import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.Literal;
 import ch.njol.skript.lang.SkriptParser;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.registrations.Converters;
 import ch.njol.skript.util.LiteralUtils;
@@ -56,8 +57,6 @@ import ch.njol.util.coll.iterator.ArrayIterator;
 @SuppressWarnings({"null", "unchecked"})
 public class ExprFilter extends SimpleExpression<Object> {
 
-	private static ExprFilter parsing;
-
 	static {
 		Skript.registerExpression(ExprFilter.class, Object.class, ExpressionType.COMBINED,
 				"%objects% (where|that match) \\[<.+>\\]");
@@ -69,19 +68,24 @@ public class ExprFilter extends SimpleExpression<Object> {
 	private String rawCond;
 	private Expression<Object> objects;
 
+	/**
+	 * @return The filter whose condition is currently being parsed by the current thread's {@link ParserInstance}
+	 */
 	public static ExprFilter getParsing() {
-		return parsing;
+		return ParserInstance.get().getCurrentFilter();
 	}
 
 	@Override
 	public boolean init(Expression<?>[] exprs, int matchedPattern, Kleenean isDelayed, SkriptParser.ParseResult parseResult) {
+		final ParserInstance parser = ParserInstance.get();
+		final ExprFilter outer = parser.getCurrentFilter();
 		try {
-			parsing = this;
+			parser.setCurrentFilter(this);
 			objects = LiteralUtils.defendExpression(exprs[0]);
 			rawCond = parseResult.regexes.get(0).group();
 			condition = Condition.parse(rawCond, "Can't understand this condition: " + rawCond);
 		} finally {
-			parsing = null;
+			parser.setCurrentFilter(outer);
 		}
 		return condition != null && LiteralUtils.canInitSafely(objects);
 	}
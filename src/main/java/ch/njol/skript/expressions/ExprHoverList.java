@@ -94,7 +94,7 @@ public class ExprHoverList extends SimpleExpression<String> {
 	@Override
 	@Nullable
 	public Class<?>[] acceptChange(ChangeMode mode) {
-		if (ScriptLoader.hasDelayBefore.isTrue()) {
+		if (ScriptLoader.getHasDelayBefore().isTrue()) {
 			Skript.error("Can't change the hover list anymore after the server list ping event has already passed");
 			return null;
 		}
@@ -82,7 +82,7 @@ public class ExprMOTD extends SimpleExpression<String> {
 	@Nullable
 	public Class<?>[] acceptChange(ChangeMode mode) {
 		if (!isDefault) {
-			if (ScriptLoader.hasDelayBefore.isTrue()) {
+			if (ScriptLoader.getHasDelayBefore().isTrue()) {
 				Skript.error("Can't change the MOTD anymore after the server list ping event has already passed");
 				return null;
 			}
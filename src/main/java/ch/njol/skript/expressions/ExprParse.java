@@ -31,6 +31,7 @@ import ch.njol.skript.doc.Description;
 import ch.njol.skript.doc.Examples;
 import ch.njol.skript.doc.Name;
 import ch.njol.skript.doc.Since;
+import ch.njol.skript.lang.CompiledPattern;
 import ch.njol.skript.lang.Expression;
 import ch.njol.skript.lang.ExpressionType;
 import ch.njol.skript.lang.Literal;
@@ -86,6 +87,8 @@ public class ExprParse extends SimpleExpression<Object> {
 	@Nullable
 	private String pattern;
 	@Nullable
+	private CompiledPattern compiledPattern;
+	@Nullable
 	private boolean[] plurals;
 	
 	@Nullable
@@ -120,6 +123,7 @@ public class ExprParse extends SimpleExpression<Object> {
 			if (p == null)
 				return false;
 			this.pattern = p.getFirst();
+			compiledPattern = new CompiledPattern(p.getFirst());
 			plurals = p.getSecond();
 		} else {
 			c = ((Literal<ClassInfo<?>>) exprs[1]).getSingle();
@@ -155,8 +159,8 @@ public class ExprParse extends SimpleExpression<Object> {
 					return one;
 				}
 			} else {
-				assert pattern != null && plurals != null;
-				final ParseResult r = SkriptParser.parse(t, pattern);
+				assert compiledPattern != null && plurals != null;
+				final ParseResult r = SkriptParser.parse(t, compiledPattern);
 				if (r != null) {
 					assert plurals.length == r.exprs.length;					
 					int resultCount = 0;
@@ -92,7 +92,7 @@ public class ExprServerIcon extends SimpleExpression<CachedServerIcon> {
 	@Nullable
 	public Class<?>[] acceptChange(ChangeMode mode) {
 		if (isServerPingEvent && !isDefault) {
-			if (ScriptLoader.hasDelayBefore.isTrue()) {
+			if (ScriptLoader.getHasDelayBefore().isTrue()) {
 				Skript.error("Can't change the server icon anymore after the server list ping event has already passed");
 				return null;
 			}
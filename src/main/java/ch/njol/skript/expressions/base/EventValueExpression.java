@@ -96,6 +96,30 @@ public class EventValueExpression<T> extends SimpleExpression<T> implements Defa
 		return one;
 	}
 	
+	/**
+	 * Whether a class doesn't override {@link #get(Event)}, i.e. whether its value is exactly the event value
+	 */
+	private final static ClassValue<Boolean> returnsEventValue = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(final Class<?> c) {
+			for (Class<?> sc = c; sc != EventValueExpression.class && sc != null; sc = sc.getSuperclass()) {
+				try {
+					sc.getDeclaredMethod("get", Event.class);
+					return false;
+				} catch (final NoSuchMethodException e) {}
+			}
+			return true;
+		}
+	};
+	
+	@Override
+	@Nullable
+	protected T getSingleValue(final Event e) {
+		if (!returnsEventValue.get(getClass()))
+			return super.getSingleValue(e);
+		return getValue(e);
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Nullable
 	private <E extends Event> T getValue(final E e) {
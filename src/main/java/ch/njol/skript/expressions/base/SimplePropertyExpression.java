@@ -55,6 +55,31 @@ public abstract class SimplePropertyExpression<F, T> extends PropertyExpression<
 		return super.get(source, this);
 	}
 	
+	/**
+	 * Whether a class doesn't override {@link #get(Event, Object[])}, i.e. whether its values are exactly the converted values of its expression
+	 */
+	private final static ClassValue<Boolean> convertsDirectly = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(final Class<?> c) {
+			for (Class<?> sc = c; sc != SimplePropertyExpression.class && sc != null; sc = sc.getSuperclass()) {
+				try {
+					sc.getDeclaredMethod("get", Event.class, Object[].class);
+					return false;
+				} catch (final NoSuchMethodException e) {}
+			}
+			return true;
+		}
+	};
+	
+	@Override
+	@Nullable
+	protected T getSingleValue(final Event e) {
+		if (!isSingle() || !convertsDirectly.get(getClass()))
+			return super.getSingleValue(e);
+		final F f = getExpr().getSingle(e);
+		return f == null ? null : convert(f);
+	}
+	
 	@Override
 	public String toString(final @Nullable Event e, final boolean debug) {
 		return "the " + getPropertyName() + " of " + getExpr().toString(e, debug);
@@ -0,0 +1,447 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.SkriptAPIException;
+import ch.njol.skript.lang.SkriptParser.ExprInfo;
+import ch.njol.skript.lang.SkriptParser.MalformedPatternException;
+
+/**
+ * A syntax pattern with everything {@link SkriptParser} needs to match it computed in advance, e.g. where each group ends and the compiled regular expressions.
+ * <p>
+ * All information is stored by the index of the character in the pattern it belongs to, so that matching a compiled pattern works exactly like matching the pattern
+ * itself, just without searching the pattern. Errors in the pattern are only thrown once the parser reaches them, like they would be when matching the pattern itself.
+ * <p>
+ * Code that matches the same pattern repeatedly, e.g. a command's arguments, should create one compiled pattern and pass it to
+ * {@link SkriptParser#parse(String, CompiledPattern)} instead of passing the pattern text every time.
+ */
+public final class CompiledPattern {
+	
+	final String pattern;
+	
+	/**
+	 * Number of expressions in a {@link SkriptParser.ParseResult} of this pattern
+	 */
+	final int expressionCount;
+	
+	/**
+	 * For '[': the index after the closing bracket<br>
+	 * for '|': the index after the closing bracket of the group, or -1 if not in a group<br>
+	 * for '%' and '&lt;': the index of the closing character
+	 */
+	private final int[] jumps;
+	
+	/**
+	 * Errors to throw when the parser reaches the character at that index. For '(' the error is only thrown after all alternatives before the error failed to match.
+	 */
+	private final MalformedPatternException[] errors;
+	
+	/**
+	 * For '(': the indices where the alternatives of the group start, and their marks
+	 */
+	private final int[][] alternatives, marks;
+	
+	/**
+	 * For '(': whether the log has to be cleared after the last alternative failed to match
+	 */
+	private final boolean[] clearAfterAlternatives;
+	
+	/**
+	 * For '&lt;'
+	 */
+	private final Pattern[] regexes;
+	
+	/**
+	 * For '%': the name of the expression and the index of the expression in the {@link SkriptParser.ParseResult}
+	 */
+	private final String[] expressionNames;
+	private final int[] expressionIndices;
+	
+	/**
+	 * For '%', only resolved once needed, as the types used by a pattern may not be registered yet when the pattern is compiled.
+	 */
+	private final ExprInfo[] exprInfos;
+	
+	/**
+	 * The names of all expressions of this pattern in order, as used to find missing expressions after the pattern was matched.
+	 */
+	final String[] names;
+	
+	/**
+	 * For each expression in {@link #names}: what to use if it is omitted from the text, or the exception to throw in that case. Only set by
+	 * {@link #resolve()}, until then this is computed whenever needed.
+	 */
+	@Nullable
+	private Omitted[] omitted;
+	@Nullable
+	private RuntimeException[] omittedErrors;
+	
+	/**
+	 * Whether {@link #resolve()} has been called. All fields are written before this one, thus this is all that has to be read to safely use the
+	 * resolved pattern from another thread.
+	 */
+	private volatile boolean resolved = false;
+	
+	public CompiledPattern(final String pattern) {
+		this.pattern = pattern;
+		final int length = pattern.length();
+		expressionCount = SkriptParser.countUnescaped(pattern, '%') / 2;
+		jumps = new int[length];
+		errors = new MalformedPatternException[length];
+		alternatives = new int[length][];
+		marks = new int[length][];
+		clearAfterAlternatives = new boolean[length];
+		regexes = new Pattern[length];
+		expressionNames = new String[length];
+		expressionIndices = new int[length];
+		exprInfos = new ExprInfo[length];
+		
+		for (int j = 0; j < length; j++) {
+			try {
+				switch (pattern.charAt(j)) {
+					case '[':
+						jumps[j] = SkriptParser.nextBracket(pattern, ']', '[', j + 1, true) + 1;
+						break;
+					case '(':
+						compileGroup(j);
+						break;
+					case '|':
+						jumps[j] = SkriptParser.nextBracket(pattern, ')', '(', j + 1, SkriptParser.getGroupLevel(pattern, j) != 0);
+						break;
+					case '%': {
+						final int end = pattern.indexOf('%', j + 1);
+						if (end == -1)
+							throw new MalformedPatternException(pattern, "Odd number of '%'");
+						jumps[j] = end;
+						expressionNames[j] = "" + pattern.substring(j + 1, end);
+						expressionIndices[j] = SkriptParser.countUnescaped(pattern, '%', 0, j) / 2;
+						break;
+					}
+					case '<': {
+						final int end = pattern.indexOf('>', j + 1);
+						if (end == -1)
+							throw new MalformedPatternException(pattern, "Missing closing regex bracket '>'");
+						jumps[j] = end;
+						try {
+							regexes[j] = Pattern.compile(pattern.substring(j + 1, end));
+						} catch (final PatternSyntaxException e) {
+							throw new MalformedPatternException(pattern, "Invalid regex <" + pattern.substring(j + 1, end) + ">", e);
+						}
+						break;
+					}
+					case '\\':
+						if (j + 1 == length)
+							throw new MalformedPatternException(pattern, "Must not end with a backslash");
+						break;
+				}
+			} catch (final MalformedPatternException e) {
+				errors[j] = e;
+			}
+		}
+		
+		final List<String> names = new ArrayList<>();
+		int x = -1;
+		while ((x = SkriptParser.nextUnescaped(pattern, '%', x + 1)) != -1) {
+			final int x2 = SkriptParser.nextUnescaped(pattern, '%', x + 1);
+			if (x2 == -1)
+				break;
+			names.add("" + pattern.substring(x + 1, x2));
+			x = x2;
+		}
+		this.names = names.toArray(new String[names.size()]);
+	}
+	
+	/**
+	 * Finds the alternatives of the group starting at <tt>start</tt> the same way the parser would if none of them matched.
+	 */
+	private void compileGroup(final int start) {
+		final List<Integer> alternatives = new ArrayList<>(), marks = new ArrayList<>();
+		boolean lastWasAlternative = false;
+		try {
+			for (int j = start; j < pattern.length(); j++) {
+				lastWasAlternative = false;
+				if (j == start || pattern.charAt(j) == '|') {
+					int mark = 0;
+					if (j != pattern.length() - 1 && ('0' <= pattern.charAt(j + 1) && pattern.charAt(j + 1) <= '9' || pattern.charAt(j + 1) == '-')) {
+						final int j2 = pattern.indexOf('¦', j + 2);
+						if (j2 != -1) {
+							try {
+								mark = Integer.parseInt(pattern.substring(j + 1, j2));
+								j = j2;
+							} catch (final NumberFormatException e) {}
+						}
+					}
+					alternatives.add(j + 1);
+					marks.add(mark);
+					lastWasAlternative = true;
+				} else if (pattern.charAt(j) == '(') {
+					j = SkriptParser.nextBracket(pattern, ')', '(', j + 1, true);
+				} else if (pattern.charAt(j) == ')') {
+					break;
+				} else if (j == pattern.length() - 1) {
+					throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+				}
+			}
+		} catch (final MalformedPatternException e) {
+			errors[start] = e;
+		}
+		this.alternatives[start] = toArray(alternatives);
+		this.marks[start] = toArray(marks);
+		clearAfterAlternatives[start] = !lastWasAlternative;
+	}
+	
+	private static int[] toArray(final List<Integer> list) {
+		final int[] r = new int[list.size()];
+		for (int i = 0; i < r.length; i++)
+			r[i] = list.get(i);
+		return r;
+	}
+	
+	void checkError(final int j) throws MalformedPatternException {
+		final MalformedPatternException e = errors[j];
+		if (e != null)
+			throw e;
+	}
+	
+	@Nullable
+	MalformedPatternException getError(final int j) {
+		return errors[j];
+	}
+	
+	int getJump(final int j) {
+		return jumps[j];
+	}
+	
+	int[] getAlternatives(final int j) {
+		return alternatives[j];
+	}
+	
+	int[] getMarks(final int j) {
+		return marks[j];
+	}
+	
+	boolean clearAfterAlternatives(final int j) {
+		return clearAfterAlternatives[j];
+	}
+	
+	Pattern getRegex(final int j) {
+		return regexes[j];
+	}
+	
+	int getExpressionIndex(final int j) {
+		return expressionIndices[j];
+	}
+	
+	ExprInfo getExprInfo(final int j) {
+		ExprInfo info = exprInfos[j];
+		if (info == null)
+			exprInfos[j] = info = SkriptParser.getExprInfo(expressionNames[j]);
+		return info;
+	}
+	
+	/**
+	 * Resolves the types of all expressions of this pattern and checks their default expressions, so that this does not have to be done while parsing.
+	 * Must only be called once all types are registered. Errors are still only thrown once the parser reaches them.
+	 */
+	void resolve() {
+		if (resolved)
+			return;
+		for (int j = 0; j < exprInfos.length; j++) {
+			if (expressionNames[j] != null && errors[j] == null && exprInfos[j] == null) {
+				try {
+					exprInfos[j] = SkriptParser.getExprInfo(expressionNames[j]);
+				} catch (final RuntimeException e) {
+					// thrown again once the parser reaches it
+				}
+			}
+		}
+		final Omitted[] omitted = new Omitted[names.length];
+		final RuntimeException[] omittedErrors = new RuntimeException[names.length];
+		for (int k = 0; k < names.length; k++) {
+			try {
+				omitted[k] = computeOmitted(k);
+			} catch (final RuntimeException e) {
+				omittedErrors[k] = e;
+			}
+		}
+		this.omitted = omitted;
+		this.omittedErrors = omittedErrors;
+		resolved = true;
+	}
+	
+	/**
+	 * @param k The index of the expression in {@link #names}
+	 * @return What to use if the expression was omitted from the text, or null if it is optional
+	 * @throws SkriptAPIException If the expression must not be omitted as its type provides no suitable default expression
+	 */
+	@Nullable
+	Omitted getOmitted(final int k) {
+		if (!resolved)
+			return computeOmitted(k);
+		final Omitted[] omitted = this.omitted;
+		final RuntimeException[] omittedErrors = this.omittedErrors;
+		assert omitted != null && omittedErrors != null;
+		final RuntimeException e = omittedErrors[k];
+		if (e != null)
+			throw e;
+		return omitted[k];
+	}
+	
+	@Nullable
+	private Omitted computeOmitted(final int k) {
+		final String name = names[k];
+		if (name.startsWith("-"))
+			return null;
+		final ExprInfo vi = SkriptParser.getExprInfo(name);
+		final DefaultExpression<?> expr = vi.classes[0].getDefaultExpression();
+		if (expr == null)
+			throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + pattern + "]");
+		if (!(expr instanceof Literal) && (vi.flagMask & SkriptParser.PARSE_EXPRESSIONS) == 0)
+			throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + pattern + "]");
+		if (expr instanceof Literal && (vi.flagMask & SkriptParser.PARSE_LITERALS) == 0)
+			throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + pattern + "]");
+		if (!vi.isPlural[0] && !expr.isSingle())
+			throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + pattern + "]");
+		return new Omitted(vi, expr);
+	}
+	
+	/**
+	 * An expression of a pattern that may be omitted from the text, with the default expression that is used instead
+	 */
+	final static class Omitted {
+		
+		final ExprInfo info;
+		final DefaultExpression<?> expression;
+		
+		Omitted(final ExprInfo info, final DefaultExpression<?> expression) {
+			this.info = info;
+			this.expression = expression;
+		}
+		
+	}
+	
+	/**
+	 * Finds the words every text matching this pattern must contain, i.e. all words outside of optional parts, groups and expressions that are separated from
+	 * everything else by spaces or non-alphanumeric characters. The words are in lower case as returned by {@link #getWords(String)}.
+	 * 
+	 * @return The required words, or an empty set if the pattern has alternatives at the top level or is malformed.
+	 */
+	Set<String> getRequiredWords() {
+		final Set<String> words = new LinkedHashSet<>();
+		for (int j = 0; j < pattern.length(); j++) {
+			if (errors[j] != null || pattern.charAt(j) == '|' && jumps[j] == -1)
+				return words;
+		}
+		final StringBuilder fragment = new StringBuilder();
+		boolean leftBoundary = true;
+		for (int j = 0; j < pattern.length(); j++) {
+			final char c = pattern.charAt(j);
+			switch (c) {
+				case '[':
+				case '(':
+				case '%':
+				case '<':
+					addWords(words, fragment, leftBoundary, false);
+					leftBoundary = false;
+					if (c == '[')
+						j = jumps[j] - 1;
+					else if (c == '(')
+						j = SkriptParser.nextBracket(pattern, ')', '(', j + 1, true);
+					else
+						j = jumps[j];
+					break;
+				case ']':
+				case ')':
+					addWords(words, fragment, leftBoundary, false);
+					leftBoundary = false;
+					break;
+				case ' ':
+					addWords(words, fragment, leftBoundary, true);
+					leftBoundary = true;
+					break;
+				case '\\':
+					fragment.append(Character.toLowerCase(pattern.charAt(++j)));
+					break;
+				default:
+					fragment.append(Character.toLowerCase(c));
+			}
+		}
+		addWords(words, fragment, leftBoundary, true);
+		return words;
+	}
+	
+	/**
+	 * Adds the words of a literal part of the pattern which are guaranteed to be whole words in any matching text.
+	 * 
+	 * @param leftBoundary Whether the text before the fragment is guaranteed to end at a word boundary
+	 * @param rightBoundary Whether the text after the fragment is guaranteed to start at a word boundary
+	 */
+	private static void addWords(final Set<String> words, final StringBuilder fragment, final boolean leftBoundary, final boolean rightBoundary) {
+		int start = -1;
+		for (int k = 0; k <= fragment.length(); k++) {
+			if (k < fragment.length() && Character.isLetterOrDigit(fragment.charAt(k))) {
+				if (start == -1)
+					start = k;
+			} else if (start != -1) {
+				if ((start != 0 || leftBoundary) && (k != fragment.length() || rightBoundary))
+					words.add(fragment.substring(start, k));
+				start = -1;
+			}
+		}
+		fragment.setLength(0);
+	}
+	
+	/**
+	 * Splits a text into its words in the same way as {@link #getRequiredWords()} does, i.e. into runs of letters and digits in lower case.
+	 */
+	static Set<String> getWords(final String text) {
+		final Set<String> words = new HashSet<>();
+		int start = -1;
+		for (int k = 0; k <= text.length(); k++) {
+			if (k < text.length() && Character.isLetterOrDigit(Character.toLowerCase(text.charAt(k)))) {
+				if (start == -1)
+					start = k;
+			} else if (start != -1) {
+				final char[] word = new char[k - start];
+				for (int l = 0; l < word.length; l++)
+					word[l] = Character.toLowerCase(text.charAt(start + l));
+				words.add(new String(word));
+				start = -1;
+			}
+		}
+		return words;
+	}
+	
+	@Override
+	public String toString() {
+		return pattern;
+	}
+	
+}
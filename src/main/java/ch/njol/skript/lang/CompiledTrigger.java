@@ -0,0 +1,190 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A {@link Trigger} compiled to a table of its items, which is executed by a single loop instead of calling {@link TriggerItem#walk(Event)} on every item.
+ * <p>
+ * Effects, conditions and conditionals are called directly and continue with precomputed indices, and debug output is not checked for every item.
+ * Items that override {@link TriggerItem#walk(Event)}, e.g. delays, loops and returns, are still walked, and execution continues in the table with the
+ * item they return, or with {@link TriggerItem#walk(TriggerItem, Event)} if that item isn't part of the trigger.
+ */
+final class CompiledTrigger {
+	
+	private final static byte WALK = 0, EFFECT = 1, CONDITION = 2, STATEMENT = 3, CONDITIONAL = 4, JUMP = 5;
+	
+	private final Trigger trigger;
+	
+	private final TriggerItem[] items;
+	private final byte[] ops;
+	
+	/**
+	 * The index of the item to execute after an item succeeded, or -1 to stop
+	 */
+	private final int[] next;
+	/**
+	 * The index of the item to execute after an item failed, or -1 to stop
+	 */
+	private final int[] fail;
+	
+	private final Map<TriggerItem, Integer> indices = new IdentityHashMap<>();
+	
+	CompiledTrigger(final Trigger trigger) {
+		this.trigger = trigger;
+		
+		final List<TriggerItem> items = new ArrayList<>();
+		final List<TriggerItem> elseClauses = new ArrayList<>();
+		final Deque<TriggerItem> queue = new ArrayDeque<>();
+		queue.add(trigger);
+		while (!queue.isEmpty()) {
+			final TriggerItem item = queue.poll();
+			if (indices.containsKey(item))
+				continue;
+			indices.put(item, items.size());
+			items.add(item);
+			
+			add(queue, item.getNext());
+			final TriggerSection parent = item.getParent();
+			if (parent != null)
+				add(queue, parent.getNext());
+			if (item instanceof TriggerSection)
+				add(queue, ((TriggerSection) item).getFirst());
+			if (item instanceof Conditional) {
+				final TriggerSection elseClause = ((Conditional) item).getElseClause();
+				if (elseClause != null && !(elseClause instanceof Conditional))
+					elseClauses.add(elseClause);
+				add(queue, elseClause);
+			} else if (item instanceof Loop) {
+				add(queue, ((Loop) item).getActualNext());
+			} else if (item instanceof While) {
+				add(queue, ((While) item).getActualNext());
+			}
+		}
+		
+		final int size = items.size();
+		this.items = items.toArray(new TriggerItem[size]);
+		ops = new byte[size];
+		next = new int[size];
+		fail = new int[size];
+		for (int i = 0; i < size; i++) {
+			final TriggerItem item = this.items[i];
+			if (item instanceof Conditional) {
+				final TriggerItem first = ((Conditional) item).getFirst(), elseClause = ((Conditional) item).getElseClause();
+				ops[i] = CONDITIONAL;
+				next[i] = indexOf(first != null ? first : item.getNext());
+				fail[i] = indexOf(elseClause != null ? elseClause : item.getNext());
+			} else if (item instanceof Trigger || elseClauses.contains(item)) {
+				final TriggerItem first = ((TriggerSection) item).getFirst();
+				ops[i] = JUMP;
+				next[i] = indexOf(first != null ? first : item.getNext());
+			} else if (overridesWalk(item.getClass())) {
+				ops[i] = WALK;
+			} else {
+				ops[i] = item instanceof Effect ? EFFECT : item instanceof Condition ? CONDITION : STATEMENT;
+				final TriggerSection parent = item.getParent();
+				next[i] = indexOf(item.getNext());
+				fail[i] = indexOf(parent == null ? null : parent.getNext());
+			}
+		}
+	}
+	
+	private static void add(final Deque<TriggerItem> queue, final @Nullable TriggerItem item) {
+		if (item != null)
+			queue.add(item);
+	}
+	
+	private int indexOf(final @Nullable TriggerItem item) {
+		if (item == null)
+			return -1;
+		final Integer i = indices.get(item);
+		assert i != null : item;
+		return i;
+	}
+	
+	private static boolean overridesWalk(final Class<?> c) {
+		for (Class<?> sc = c; sc != TriggerItem.class && sc != null; sc = sc.getSuperclass()) {
+			try {
+				sc.getDeclaredMethod("walk", Event.class);
+				return true;
+			} catch (final NoSuchMethodException e) {}
+		}
+		return false;
+	}
+	
+	/**
+	 * Executes the trigger like {@link TriggerItem#walk(TriggerItem, Event)}.
+	 * 
+	 * @return false iff an exception occurred
+	 */
+	boolean execute(final Event e) {
+		final TriggerItem[] items = this.items;
+		final byte[] ops = this.ops;
+		final int[] next = this.next, fail = this.fail;
+		int i = 0;
+		try {
+			while (i != -1) {
+				final TriggerItem item = items[i];
+				switch (ops[i]) {
+					case EFFECT:
+						((Effect) item).execute(e);
+						i = next[i];
+						break;
+					case CONDITION:
+						i = ((Condition) item).check(e) ? next[i] : fail[i];
+						break;
+					case STATEMENT:
+						i = item.run(e) ? next[i] : fail[i];
+						break;
+					case CONDITIONAL:
+						i = ((Conditional) item).getCondition().check(e) ? next[i] : fail[i];
+						break;
+					case JUMP:
+						i = next[i];
+						break;
+					default:
+						final TriggerItem n = item.walk(e);
+						if (n == null)
+							return true;
+						final Integer j = indices.get(n);
+						if (j == null) // e.g. the effect of an 'effect if condition'
+							return TriggerItem.walk(n, e);
+						i = j;
+				}
+			}
+			return true;
+		} catch (final StackOverflowError err) {
+			TriggerItem.handleStackOverflow(trigger, err);
+		} catch (final Exception ex) {
+			TriggerItem.handleException(ex, i == -1 ? null : items[i]);
+		}
+		return false;
+	}
+	
+}
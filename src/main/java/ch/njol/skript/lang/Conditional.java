@@ -96,6 +96,18 @@ public class Conditional extends TriggerSection {
 				.setNext(getNext());
 	}
 	
+	Condition getCondition() {
+		return cond;
+	}
+	
+	/**
+	 * @return The section that is run if the condition doesn't hold, which is another conditional for 'else if' sections
+	 */
+	@Nullable
+	TriggerSection getElseClause() {
+		return elseClause;
+	}
+	
 	public boolean hasElseClause() {
 		return elseClause != null && !(elseClause instanceof Conditional);
 	}
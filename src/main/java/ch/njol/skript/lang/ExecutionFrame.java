@@ -0,0 +1,158 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.WeakHashMap;
+
+import org.bukkit.event.Event;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The state of the triggers running for an event: the current iterators and values of their loops, their local variables and whether they were delayed.
+ * <p>
+ * Triggers only pass the event around while they run, so the frame of an event is found through the event. Every thread remembers the frame it used last,
+ * thus code running for the same event repeatedly (e.g. the items of a loop) only looks up the frame once, and accesses everything in it directly.
+ */
+public final class ExecutionFrame {
+	
+	/**
+	 * Synchronised on itself. Frames must not reference their event strongly, or this map would never release them.
+	 */
+	private final static Map<Event, ExecutionFrame> frames = new WeakHashMap<>();
+	
+	private final static ThreadLocal<ExecutionFrame> last = new ThreadLocal<>();
+	
+	/**
+	 * @return The frame of the given event, which is created if it doesn't exist yet
+	 */
+	public static ExecutionFrame get(final Event e) {
+		ExecutionFrame frame = last.get();
+		if (frame != null && frame.event.get() == e)
+			return frame;
+		synchronized (frames) {
+			frame = frames.get(e);
+			if (frame == null)
+				frames.put(e, frame = new ExecutionFrame(e));
+		}
+		last.set(frame);
+		return frame;
+	}
+	
+	/**
+	 * @return The frame of the given event, or null if nothing has been stored for the event yet
+	 */
+	@Nullable
+	public static ExecutionFrame getIfExists(final Event e) {
+		ExecutionFrame frame = last.get();
+		if (frame != null && frame.event.get() == e)
+			return frame;
+		synchronized (frames) {
+			frame = frames.get(e);
+		}
+		if (frame != null)
+			last.set(frame);
+		return frame;
+	}
+	
+	private final WeakReference<Event> event;
+	
+	private ExecutionFrame(final Event e) {
+		event = new WeakReference<>(e);
+	}
+	
+	/**
+	 * The local variables, see {@link ch.njol.skript.variables.Variables#removeLocals(Event)}
+	 */
+	@Nullable
+	private Object locals = null;
+	
+	private boolean delayed = false;
+	
+	/**
+	 * The state of a loop that is currently running for the event
+	 */
+	final static class LoopState {
+		@Nullable
+		Iterator<?> iterator;
+		@Nullable
+		Object value;
+	}
+	
+	private final Map<Loop, LoopState> loops = new IdentityHashMap<>(4);
+	
+	@Nullable
+	public Object getLocals() {
+		return locals;
+	}
+	
+	public void setLocals(final @Nullable Object locals) {
+		this.locals = locals;
+	}
+	
+	/**
+	 * @return Whether a trigger running for the event has been delayed, i.e. whether it's too late to change the event
+	 */
+	public boolean isDelayed() {
+		return delayed;
+	}
+	
+	public void setDelayed() {
+		delayed = true;
+	}
+	
+	@Nullable
+	LoopState getLoopState(final Loop loop) {
+		return loops.get(loop);
+	}
+	
+	LoopState startLoop(final Loop loop, final Iterator<?> iterator) {
+		final LoopState state = new LoopState();
+		state.iterator = iterator;
+		loops.put(loop, state);
+		return state;
+	}
+	
+	void exitLoop(final Loop loop) {
+		loops.remove(loop);
+	}
+	
+	/**
+	 * @return A snapshot of the current iterators of the given loop by event, for {@link Loop#getCurrentIter()}
+	 */
+	static Map<Event, Iterator<?>> getLoopIterators(final Loop loop) {
+		final Map<Event, Iterator<?>> iterators = new HashMap<>();
+		synchronized (frames) {
+			for (final Entry<Event, ExecutionFrame> frame : frames.entrySet()) {
+				final LoopState state = frame.getValue().getLoopState(loop);
+				final Iterator<?> iter = state == null ? null : state.iterator;
+				if (iter != null)
+					iterators.put(frame.getKey(), iter);
+			}
+		}
+		return iterators;
+	}
+	
+}
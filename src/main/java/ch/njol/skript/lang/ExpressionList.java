@@ -102,10 +102,7 @@ public class ExpressionList<T> implements Expression<T> {
 			if (t.length > 0)
 				return t;
 		}
-		@SuppressWarnings("unchecked")
-		final T[] r = (T[]) Array.newInstance(returnType, 0);
-		assert r != null;
-		return r;
+		return CollectionUtils.emptyArray(returnType);
 	}
 	
 	@SuppressWarnings({"null", "unchecked"})
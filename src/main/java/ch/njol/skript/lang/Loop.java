@@ -19,9 +19,11 @@
  */
 package ch.njol.skript.lang;
 
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.Set;
 
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
@@ -42,9 +44,6 @@ public class Loop extends TriggerSection {
 	
 	private final Expression<?> expr;
 	
-	private transient Map<Event, Object> current = new WeakHashMap<Event, Object>();
-	private transient Map<Event, Iterator<?>> currentIter = new WeakHashMap<Event, Iterator<?>>();
-	
 	@Nullable
 	private TriggerItem actualNext;
 	
@@ -60,13 +59,13 @@ public class Loop extends TriggerSection {
 		} else {
 			this.expr = expr;
 		}
-		ScriptLoader.currentSections.add(this);
-		ScriptLoader.currentLoops.add(this);
+		ScriptLoader.getCurrentSections().add(this);
+		ScriptLoader.getCurrentLoops().add(this);
 		try {
 			setTriggerItems(ScriptLoader.loadItems(node));
 		} finally {
-			ScriptLoader.currentLoops.remove(ScriptLoader.currentLoops.size() - 1);
-			ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+			ScriptLoader.getCurrentLoops().remove(ScriptLoader.getCurrentLoops().size() - 1);
+			ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 		}
 		super.setNext(this);
 	}
@@ -74,23 +73,26 @@ public class Loop extends TriggerSection {
 	@Override
 	@Nullable
 	protected TriggerItem walk(final Event e) {
-		Iterator<?> iter = currentIter.get(e);
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		ExecutionFrame.LoopState state = frame.getLoopState(this);
+		Iterator<?> iter = state == null ? null : state.iterator;
 		if (iter == null) {
 			iter = expr instanceof Variable ? ((Variable<?>) expr).variablesIterator(e) : expr.iterator(e);
 			if (iter != null) {
 				if (iter.hasNext())
-					currentIter.put(e, iter);
+					state = frame.startLoop(this, iter);
 				else
 					iter = null;
 			}
 		}
 		if (iter == null || !iter.hasNext()) {
 			if (iter != null)
-				currentIter.remove(e); // a loop inside another loop can be called multiple times in the same event
+				frame.exitLoop(this); // a loop inside another loop can be called multiple times in the same event
 			debug(e, false);
 			return actualNext;
 		} else {
-			current.put(e, iter.next());
+			assert state != null;
+			state.value = iter.next();
 			return walk(e, true);
 		}
 	}
@@ -102,7 +104,18 @@ public class Loop extends TriggerSection {
 	
 	@Nullable
 	public Object getCurrent(final Event e) {
-		return current.get(e);
+		final ExecutionFrame frame = ExecutionFrame.getIfExists(e);
+		final ExecutionFrame.LoopState state = frame == null ? null : frame.getLoopState(this);
+		return state == null ? null : state.value;
+	}
+	
+	/**
+	 * Stops this loop for the given event, so that it starts over the next time it is reached
+	 */
+	public void exit(final Event e) {
+		final ExecutionFrame frame = ExecutionFrame.getIfExists(e);
+		if (frame != null)
+			frame.exitLoop(this);
 	}
 	
 	public Expression<?> getLoopedExpression() {
@@ -120,7 +133,50 @@ public class Loop extends TriggerSection {
 		return actualNext;
 	}
 	
+	/**
+	 * @return A view of the iterators of this loop by event. Getting, putting and removing iterators works on the {@link ExecutionFrame} of the given event,
+	 *         everything else on a snapshot of the loops currently running.
+	 * @deprecated The state of loops is stored in the {@link ExecutionFrame} of the event, use {@link #exit(Event)} to stop a loop
+	 */
+	@Deprecated
 	public Map<Event, Iterator<?>> getCurrentIter() {
-		return currentIter;
+		return new AbstractMap<Event, Iterator<?>>() {
+			@Override
+			@Nullable
+			public Iterator<?> get(final @Nullable Object key) {
+				if (!(key instanceof Event))
+					return null;
+				final ExecutionFrame frame = ExecutionFrame.getIfExists((Event) key);
+				final ExecutionFrame.LoopState state = frame == null ? null : frame.getLoopState(Loop.this);
+				return state == null ? null : state.iterator;
+			}
+			
+			@Override
+			public boolean containsKey(final @Nullable Object key) {
+				return get(key) != null;
+			}
+			
+			@Override
+			@Nullable
+			public Iterator<?> put(final Event key, final Iterator<?> value) {
+				final Iterator<?> iter = get(key);
+				ExecutionFrame.get(key).startLoop(Loop.this, value);
+				return iter;
+			}
+			
+			@Override
+			@Nullable
+			public Iterator<?> remove(final @Nullable Object key) {
+				final Iterator<?> iter = get(key);
+				if (iter != null)
+					exit((Event) key);
+				return iter;
+			}
+			
+			@Override
+			public Set<Entry<Event, Iterator<?>>> entrySet() {
+				return Collections.unmodifiableMap(ExecutionFrame.getLoopIterators(Loop.this)).entrySet();
+			}
+		};
 	}
 }
@@ -0,0 +1,394 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.SkriptAddon;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.config.Config;
+import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.parser.ParserInstance;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+
+/**
+ * Remembers which pattern matched each text that was parsed while loading a script, so that the script can be parsed again without trying all the patterns
+ * that didn't match the last time. The cache of a script is discarded if the script, Skript's config, the aliases or the registered syntax elements and types
+ * changed in any way.
+ * <p>
+ * The parse calls are recorded for each line in the order they are made in, leaving out calls made while trying patterns that did not match in the end. As
+ * parsing is deterministic, the same calls are made in the same order when the script is parsed again, and {@link SkriptParser} can go straight to the pattern
+ * that matched the last time. If that pattern does not match anymore, or a call is not the one that was recorded, the rest of the line is parsed without the
+ * cache.
+ */
+public final class ParseCache {
+	
+	private final static int MAGIC = 0x534B5043; // "SKPC"
+	private final static short FORMAT_VERSION = 1;
+	
+	/**
+	 * The result of a call that didn't match any pattern
+	 */
+	private final static int NO_MATCH = -1;
+	/**
+	 * The result of a call that matched a syntax element which is not in the {@link SyntaxElementIndex}, or that did not finish
+	 */
+	private final static int UNKNOWN = -2;
+	
+	private static volatile boolean enabled = false;
+	
+	/**
+	 * Identifies Skript's version, the addons and everything they registered, or null if registration is not done yet
+	 */
+	@Nullable
+	private static volatile String registrations = null;
+	
+	private final static AtomicLong totalCalls = new AtomicLong(), cachedCalls = new AtomicLong();
+	
+	public static void setEnabled(final boolean enabled) {
+		ParseCache.enabled = enabled;
+	}
+	
+	/**
+	 * Called once all syntax elements have been registered and {@link SyntaxElementIndex indexed}, as the index defines the ids the results are stored by.
+	 * 
+	 * @param infos The syntax elements in the same order as passed to {@link SyntaxElementIndex#build(Collection)}
+	 */
+	public static void init(final Collection<? extends SyntaxElementInfo<?>> infos) {
+		final StringBuilder b = new StringBuilder();
+		b.append(Skript.getVersion()).append('\n');
+		for (final SkriptAddon addon : Skript.getAddons())
+			b.append(addon.getName()).append(' ').append(addon.plugin.getDescription().getVersion()).append('\n');
+		for (final ClassInfo<?> ci : Classes.getClassInfos())
+			b.append(ci.getCodeName()).append('\n');
+		for (final SyntaxElementInfo<?> info : infos) {
+			b.append(info.c.getName());
+			for (final String pattern : info.patterns)
+				b.append('\t').append(pattern);
+			b.append('\n');
+		}
+		registrations = hash(b.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private final File file;
+	
+	private final String key;
+	
+	/**
+	 * The calls recorded when the script was parsed the last time, and the calls of this time, by line
+	 */
+	private final Map<Integer, List<Call>> previous, current = new HashMap<>();
+	
+	/**
+	 * Lines where a call differed from the last time
+	 */
+	private final Set<Integer> diverged = new HashSet<>();
+	
+	/**
+	 * Number of calls in progress that try all patterns. Calls made by such calls are never taken from the cache, as they may be made for patterns that don't match.
+	 */
+	private int searching = 0;
+	
+	private boolean changed;
+	
+	private ParseCache(final File file, final String key, final Map<Integer, List<Call>> previous) {
+		this.file = file;
+		this.key = key;
+		this.previous = previous;
+		changed = previous.isEmpty();
+	}
+	
+	/**
+	 * Loads the cache of the given script if caching is enabled. The cache has to be set as the {@link ParserInstance#setParseCache(ParseCache) current one}
+	 * while the script is parsed, and should be {@link #save() saved} afterwards.
+	 * 
+	 * @return The cache of the script, or null if caching is disabled or the script is not a file
+	 */
+	@Nullable
+	public static ParseCache load(final Config config) {
+		final String registrations = ParseCache.registrations;
+		final File script = config.getFile();
+		if (!enabled || registrations == null || script == null || !script.isFile())
+			return null;
+		final File dataFolder = Skript.getInstance().getDataFolder();
+		final File file = new File(new File(dataFolder, "cache"), config.getFileName() + ".cache");
+		final String key;
+		try {
+			final StringBuilder b = new StringBuilder(registrations).append('\n');
+			addFiles(b, new File(dataFolder, "config.sk"));
+			addFiles(b, new File(dataFolder, "aliases"));
+			b.append(hash(Files.readAllBytes(script.toPath())));
+			key = hash(b.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (final IOException e) {
+			return null;
+		}
+		
+		final Map<Integer, List<Call>> previous = new HashMap<>();
+		if (file.exists()) {
+			try (final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+				if (in.readInt() == MAGIC && in.readShort() == FORMAT_VERSION && in.readUTF().equals(key)) {
+					for (int lines = in.readInt(); lines > 0; lines--) {
+						final int line = in.readInt();
+						final Call[] calls = new Call[in.readInt()];
+						for (int i = 0; i < calls.length; i++)
+							calls[i] = new Call(in.readInt(), in.readInt());
+						previous.put(line, Arrays.asList(calls));
+					}
+				}
+			} catch (final IOException e) {
+				Skript.warning("Could not read the parse cache of " + config.getFileName() + ": " + ExceptionUtils.toString(e));
+				previous.clear();
+			}
+		}
+		return new ParseCache(file, key, previous);
+	}
+	
+	/**
+	 * Saves the calls recorded by this cache if they differ from the ones it was loaded with.
+	 */
+	public void save() {
+		if (!changed)
+			return;
+		final File tempFile = new File(file.getPath() + ".temp");
+		file.getParentFile().mkdirs();
+		try {
+			try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+				out.writeInt(MAGIC);
+				out.writeShort(FORMAT_VERSION);
+				out.writeUTF(key);
+				out.writeInt(current.size());
+				for (final Entry<Integer, List<Call>> e : current.entrySet()) {
+					out.writeInt(e.getKey());
+					out.writeInt(e.getValue().size());
+					for (final Call call : e.getValue()) {
+						out.writeInt(call.text);
+						out.writeInt(call.result);
+					}
+				}
+			}
+			FileUtils.move(tempFile, file, true);
+		} catch (final IOException e) {
+			Skript.warning("Could not save the parse cache to " + file + ": " + ExceptionUtils.toString(e));
+		}
+	}
+	
+	/**
+	 * Starts a parse call for the given text if a script is being parsed with a cache.
+	 * 
+	 * @return The call, which must be {@link Call#done() done} once parsing finished
+	 */
+	@Nullable
+	static Call startCall(final String text) {
+		final ParseCache cache = ParserInstance.get().getParseCache();
+		if (cache == null)
+			return null;
+		final Node node = SkriptLogger.getNode();
+		final Integer line = node == null ? -1 : node.getLine();
+		List<Call> calls = cache.current.get(line);
+		if (calls == null)
+			cache.current.put(line, calls = new ArrayList<>());
+		final Call call = new Call(text.hashCode(), NO_MATCH);
+		call.cache = cache;
+		call.line = line;
+		if (cache.searching == 0 && !cache.diverged.contains(line)) {
+			final List<Call> previousCalls = cache.previous.get(line);
+			final Call previous = previousCalls != null && calls.size() < previousCalls.size() ? previousCalls.get(calls.size()) : null;
+			if (previous != null && previous.text == call.text) {
+				call.expected = previous.result;
+				call.checked = true;
+			} else {
+				cache.diverged.add(line);
+				cache.changed = true;
+			}
+		}
+		calls.add(call);
+		totalCalls.incrementAndGet();
+		return call;
+	}
+	
+	/**
+	 * A call of {@link SkriptParser} to parse a text with some syntax elements.
+	 */
+	final static class Call {
+		
+		/**
+		 * The hash code of the parsed text
+		 */
+		final int text;
+		
+		/**
+		 * The id of the pattern that matched as defined by the {@link SyntaxElementIndex}, or {@link ParseCache#NO_MATCH} or {@link ParseCache#UNKNOWN}
+		 */
+		int result;
+		
+		/**
+		 * The result of this call the last time, or {@link ParseCache#UNKNOWN} if it is not known
+		 */
+		private int expected = UNKNOWN;
+		
+		@Nullable
+		private ParseCache cache;
+		
+		private int line;
+		
+		private int attemptStart;
+		
+		/**
+		 * Whether this call is the one recorded the last time, i.e. whether its result has to be compared with {@link #expected}
+		 */
+		private boolean checked = false;
+		
+		private boolean searching = false;
+		
+		Call(final int text, final int result) {
+			this.text = text;
+			this.result = result;
+		}
+		
+		/**
+		 * @return The id of the pattern that matched this call the last time, or -1 if all patterns have to be tried
+		 */
+		int getHint() {
+			return expected >= 0 ? expected : -1;
+		}
+		
+		/**
+		 * To be called before trying all patterns, i.e. if there is no hint or the hinted pattern did not match.
+		 */
+		void searchAll() {
+			final ParseCache cache = this.cache;
+			assert cache != null && !searching;
+			if (expected >= 0) {
+				cache.diverged.add(line);
+				cache.changed = true;
+			}
+			searching = true;
+			cache.searching++;
+		}
+		
+		/**
+		 * To be called before trying to match a pattern
+		 */
+		void attempt() {
+			final ParseCache cache = this.cache;
+			assert cache != null;
+			attemptStart = cache.current.get(line).size();
+		}
+		
+		/**
+		 * To be called if the pattern of the last {@link #attempt()} did not match, to forget the calls made while trying it
+		 */
+		void failed() {
+			final ParseCache cache = this.cache;
+			assert cache != null;
+			final List<Call> calls = cache.current.get(line);
+			calls.subList(attemptStart, calls.size()).clear();
+		}
+		
+		/**
+		 * To be called once the given pattern matched
+		 */
+		void matched(final SyntaxElementInfo<?> info, final int pattern) {
+			result = info.firstPatternId == -1 ? UNKNOWN : info.firstPatternId + pattern;
+		}
+		
+		/**
+		 * To be called once this call finished
+		 */
+		void done() {
+			final ParseCache cache = this.cache;
+			assert cache != null;
+			if (searching)
+				cache.searching--;
+			else
+				cachedCalls.incrementAndGet();
+			if (checked && (result != expected || result == UNKNOWN)) {
+				cache.diverged.add(line);
+				cache.changed = true;
+			}
+		}
+	
+	}
+	
+	private static void addFiles(final StringBuilder b, final File f) {
+		if (f.isDirectory()) {
+			final File[] files = f.listFiles();
+			if (files == null)
+				return;
+			Arrays.sort(files);
+			for (final File file : files)
+				addFiles(b, file);
+		} else if (f.isFile()) {
+			b.append(f.getPath()).append(' ').append(f.length()).append(' ').append(f.lastModified()).append('\n');
+		}
+	}
+	
+	private static String hash(final byte[] data) {
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			final StringBuilder b = new StringBuilder(digest.length * 2);
+			for (final byte d : digest)
+				b.append(Character.forDigit((d >> 4) & 0xF, 16)).append(Character.forDigit(d & 0xF, 16));
+			return "" + b;
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every JVM supports SHA-256
+		}
+	}
+	
+	/**
+	 * Prints how many parse calls could be answered by the cache since the last call of this method to the debug log.
+	 */
+	public static void printStatistics() {
+		if (!Skript.debug())
+			return;
+		final long total = totalCalls.getAndSet(0), cached = cachedCalls.getAndSet(0);
+		if (total == 0)
+			return;
+		Skript.debug("Parse cache: " + cached + " of " + total + " parse calls went straight to the pattern that matched the last time (" + (cached * 100 / total) + "%)");
+	}
+	
+}
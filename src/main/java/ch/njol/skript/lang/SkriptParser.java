@@ -21,12 +21,13 @@ package ch.njol.skript.lang;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Deque;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -52,6 +53,8 @@ import ch.njol.skript.expressions.ExprParse;
 import ch.njol.skript.lang.function.ExprFunctionCall;
 import ch.njol.skript.lang.function.FunctionReference;
 import ch.njol.skript.lang.function.Functions;
+import ch.njol.skript.lang.parser.FailedExpressions;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleLiteral;
 import ch.njol.skript.localization.Language;
 import ch.njol.skript.localization.Message;
@@ -134,9 +137,14 @@ public class SkriptParser {
 			expr = parser.expr;
 			exprs = new Expression<?>[countUnescaped(pattern, '%') / 2];
 		}
+		
+		ParseResult(final SkriptParser parser, final CompiledPattern pattern) {
+			expr = parser.expr;
+			exprs = new Expression<?>[pattern.expressionCount];
+		}
 	}
 	
-	private final static class MalformedPatternException extends RuntimeException {
+	final static class MalformedPatternException extends RuntimeException {
 		private static final long serialVersionUID = -5133477361763823946L;
 		
 		public MalformedPatternException(final String pattern, final String message) {
@@ -213,61 +221,103 @@ public class SkriptParser {
 	@Nullable
 	private final <T extends SyntaxElement> T parse(final Iterator<? extends SyntaxElementInfo<? extends T>> source) {
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+		final ParseCache.Call call = ParseCache.startCall(expr);
+		final SyntaxElementIndex.Candidates candidates = SyntaxElementIndex.getCandidates(expr);
 		try {
-			while (source.hasNext()) {
-				final SyntaxElementInfo<? extends T> info = source.next();
-				patternsLoop: for (int i = 0; i < info.patterns.length; i++) {
-					log.clear();
-					try {
-						final String pattern = info.patterns[i];
-						assert pattern != null;
-						final ParseResult res = parse_i(pattern, 0, 0);
-						if (res != null) {
-							int x = -1;
-							for (int j = 0; (x = nextUnescaped(pattern, '%', x + 1)) != -1; j++) {
-								final int x2 = nextUnescaped(pattern, '%', x + 1);
-								if (res.exprs[j] == null) {
-									final String name = pattern.substring(x + 1, x2);
-									if (!name.startsWith("-")) {
-										final ExprInfo vi = getExprInfo(name);
-										final DefaultExpression<?> expr = vi.classes[0].getDefaultExpression();
-										if (expr == null)
-											throw new SkriptAPIException("The class '" + vi.classes[0].getCodeName() + "' does not provide a default expression. Either allow null (with %-" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (!(expr instanceof Literal) && (vi.flagMask & PARSE_EXPRESSIONS) == 0)
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a literal. Either allow null (with %-*" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (expr instanceof Literal && (vi.flagMask & PARSE_LITERALS) == 0)
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is a literal. Either allow null (with %-~" + vi.classes[0].getCodeName() + "%) or make it mandatory [pattern: " + info.patterns[i] + "]");
-										if (!vi.isPlural[0] && !expr.isSingle())
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' is not a single-element expression. Change your pattern to allow multiple elements or make the expression mandatory [pattern: " + info.patterns[i] + "]");
-										if (vi.time != 0 && !expr.setTime(vi.time))
-											throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + "]");
-										if (!expr.init())
-											continue patternsLoop;
-										res.exprs[j] = expr;
-									}
-								}
-								x = x2;
-							}
-							final T t = info.c.newInstance();
-							if (t.init(res.exprs, i, ScriptLoader.hasDelayBefore, res)) {
-								log.printLog();
-								return t;
-							}
+			Iterator<? extends SyntaxElementInfo<? extends T>> infos = source;
+			if (call != null) {
+				final int hint = call.getHint();
+				if (hint != -1) {
+					// try the pattern that matched the last time first, and all patterns in order if it doesn't match anymore
+					final List<SyntaxElementInfo<? extends T>> list = new ArrayList<>();
+					while (source.hasNext())
+						list.add(source.next());
+					for (final SyntaxElementInfo<? extends T> info : list) {
+						final int i = hint - info.firstPatternId;
+						if (info.firstPatternId == -1 || i < 0 || i >= info.patterns.length)
+							continue;
+						log.clear();
+						call.attempt();
+						final T t = parse(info, i);
+						if (t != null) {
+							log.printLog();
+							call.matched(info, i);
+							return t;
 						}
-					} catch (final InstantiationException e) {
-						assert false;
-					} catch (final IllegalAccessException e) {
-						assert false;
+						call.failed();
+						break;
+					}
+					infos = list.iterator();
+				}
+				call.searchAll();
+			}
+			while (infos.hasNext()) {
+				final SyntaxElementInfo<? extends T> info = infos.next();
+				for (int i = 0; i < info.patterns.length; i++) {
+					if (candidates != null && !candidates.contains(info, i))
+						continue;
+					log.clear();
+					if (call != null)
+						call.attempt();
+					final T t = parse(info, i);
+					if (t != null) {
+						log.printLog();
+						if (call != null)
+							call.matched(info, i);
+						return t;
 					}
+					if (call != null)
+						call.failed();
 				}
 			}
 			log.printError();
 			return null;
 		} finally {
 			log.stop();
+			if (candidates != null)
+				candidates.done();
+			if (call != null)
+				call.done();
 		}
 	}
 	
+	/**
+	 * Tries to match the given pattern of a syntax element, and creates and initialises a new instance of the syntax element if it matches.
+	 * 
+	 * @return The syntax element, or null if the pattern didn't match or the syntax element could not be initialised
+	 */
+	@Nullable
+	private final <T extends SyntaxElement> T parse(final SyntaxElementInfo<? extends T> info, final int i) {
+		try {
+			final CompiledPattern pattern = info.compiledPatterns[i];
+			final ParseResult res = parse_i(pattern, 0, 0);
+			if (res == null)
+				return null;
+			for (int j = 0; j < pattern.names.length; j++) {
+				if (res.exprs[j] == null) {
+					final CompiledPattern.Omitted omitted = pattern.getOmitted(j);
+					if (omitted != null) {
+						final ExprInfo vi = omitted.info;
+						final DefaultExpression<?> expr = omitted.expression;
+						if (vi.time != 0 && !expr.setTime(vi.time))
+							throw new SkriptAPIException("The default expression of '" + vi.classes[0].getCodeName() + "' does not have distinct time states. [pattern: " + info.patterns[i] + "]");
+						if (!expr.init())
+							return null;
+						res.exprs[j] = expr;
+					}
+				}
+			}
+			final T t = info.c.newInstance();
+			if (t.init(res.exprs, i, ScriptLoader.getHasDelayBefore(), res))
+				return t;
+		} catch (final InstantiationException e) {
+			assert false;
+		} catch (final IllegalAccessException e) {
+			assert false;
+		}
+		return null;
+	}
+	
 	@SuppressWarnings("null")
 	private final static Pattern varPattern = Pattern.compile("((the )?var(iable)? )?\\{([^{}]|%\\{|\\}%)+\\}", Pattern.CASE_INSENSITIVE);
 	
@@ -619,8 +669,8 @@ public class SkriptParser {
 				if ((flags & PARSE_LITERALS) != 0) {
 					// Hack as items use '..., ... and ...' for enchantments. Numbers and times are parsed beforehand as they use the same (deprecated) id[:data] syntax.
 					final SkriptParser p = new SkriptParser(expr, PARSE_LITERALS, context);
-					if (ScriptLoader.currentScript != null) {
-						Config cs = ScriptLoader.currentScript;
+					if (ScriptLoader.getCurrentScript() != null) {
+						Config cs = ScriptLoader.getCurrentScript();
 						p.suppressMissingAndOrWarnings = ScriptOptions.getInstance().suppressesWarning(cs.getFile(), "conjunction");
 					}
 					if (!p.suppressMissingAndOrWarnings) {
@@ -777,8 +827,8 @@ public class SkriptParser {
 				return ts.get(0);
 			
 			if (and.isUnknown() && !suppressMissingAndOrWarnings) {
-				if (ScriptLoader.currentScript != null) {
-					Config cs = ScriptLoader.currentScript;
+				if (ScriptLoader.getCurrentScript() != null) {
+					Config cs = ScriptLoader.getCurrentScript();
 					if (!ScriptOptions.getInstance().suppressesWarning(cs.getFile(), "conjunction")) {
 						Skript.warning(MISSING_AND_OR + ": " + expr);
 					}
@@ -819,8 +869,8 @@ public class SkriptParser {
 					// Hack as items use '..., ... and ...' for enchantments. Numbers and times are parsed beforehand as they use the same (deprecated) id[:data] syntax.
 					final SkriptParser p = new SkriptParser(expr, PARSE_LITERALS, context);
 					p.suppressMissingAndOrWarnings = suppressMissingAndOrWarnings; // If we suppress warnings here, we suppress them in parser what we created too
-					if (ScriptLoader.currentScript != null) {
-						Config cs = ScriptLoader.currentScript;
+					if (ScriptLoader.getCurrentScript() != null) {
+						Config cs = ScriptLoader.getCurrentScript();
 						p.suppressMissingAndOrWarnings = ScriptOptions.getInstance().suppressesWarning(cs.getFile(), "conjunction");
 					}
 					for (final Class<?> c : new Class[] {Number.class, Time.class, ItemType.class, ItemStack.class}) {
@@ -986,8 +1036,8 @@ public class SkriptParser {
 			}
 			
 			if (and.isUnknown() && !suppressMissingAndOrWarnings) {
-				if (ScriptLoader.currentScript != null) {
-					Config cs = ScriptLoader.currentScript;
+				if (ScriptLoader.getCurrentScript() != null) {
+					Config cs = ScriptLoader.getCurrentScript();
 					if (!ScriptOptions.getInstance().suppressesWarning(cs.getFile(), "conjunction"))
 						Skript.warning(MISSING_AND_OR + ": " + expr);
 				} else {
@@ -1186,7 +1236,7 @@ public class SkriptParser {
 //			@SuppressWarnings("null")
 			
 			final FunctionReference<T> e = new FunctionReference<>(functionName, SkriptLogger.getNode(),
-					ScriptLoader.currentScript != null ? ScriptLoader.currentScript.getFileName() : null, types, params);//.toArray(new Expression[params.size()]));
+					ScriptLoader.getCurrentScript() != null ? ScriptLoader.getCurrentScript().getFileName() : null, types, params);//.toArray(new Expression[params.size()]));
 			if (!e.validateFunction(true)) {
 				log.printError();
 				return null;
@@ -1203,7 +1253,7 @@ public class SkriptParser {
 	 */
 	public static boolean parseArguments(final String args, final ScriptCommand command, final ScriptCommandEvent event) {
 		final SkriptParser parser = new SkriptParser(args, PARSE_LITERALS, ParseContext.COMMAND);
-		final ParseResult res = parser.parse_i(command.getPattern(), 0, 0);
+		final ParseResult res = parser.parse_i(command.getCompiledPattern(), 0, 0);
 		if (res == null)
 			return false;
 		
@@ -1225,6 +1275,16 @@ public class SkriptParser {
 	 */
 	@Nullable
 	public static ParseResult parse(final String text, final String pattern) {
+		return parse(text, new CompiledPattern(pattern));
+	}
+	
+	/**
+	 * Parses the text as the given compiled pattern as {@link ParseContext#COMMAND}.
+	 * <p>
+	 * Prints parse errors (i.e. must start a ParseLog before calling this method)
+	 */
+	@Nullable
+	public static ParseResult parse(final String text, final CompiledPattern pattern) {
 		return new SkriptParser(text, PARSE_LITERALS, ParseContext.COMMAND).parse_i(pattern, 0, 0);
 	}
 	
@@ -1249,36 +1309,53 @@ public class SkriptParser {
 		assert context == ParseContext.EVENT;
 		assert flags == PARSE_LITERALS;
 		final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+		final ParseCache.Call call = ParseCache.startCall(expr);
+		final SyntaxElementIndex.Candidates candidates = SyntaxElementIndex.getCandidates(expr);
 		try {
-			for (final SkriptEventInfo<?> info : Skript.getEvents()) {
-				for (int i = 0; i < info.patterns.length; i++) {
-					log.clear();
-					try {
-						final String pattern = info.patterns[i];
-						assert pattern != null;
-						final ParseResult res = parse_i(pattern, 0, 0);
-						if (res != null) {
-							final SkriptEvent e = info.c.newInstance();
-							final Literal<?>[] ls = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
-							assert ls != null;
-							if (!e.init(ls, i, res)) {
-								log.printError();
-								return null;
+			// try the pattern that matched the last time first, and all patterns in order if it doesn't match anymore
+			int hint = call == null ? -1 : call.getHint();
+			while (true) {
+				if (call != null && hint == -1)
+					call.searchAll();
+				for (final SkriptEventInfo<?> info : Skript.getEvents()) {
+					for (int i = 0; i < info.patterns.length; i++) {
+						if (hint != -1 ? info.firstPatternId == -1 || info.firstPatternId + i != hint : candidates != null && !candidates.contains(info, i))
+							continue;
+						log.clear();
+						try {
+							final ParseResult res = parse_i(info.compiledPatterns[i], 0, 0);
+							if (res != null) {
+								if (call != null)
+									call.matched(info, i);
+								final SkriptEvent e = info.c.newInstance();
+								final Literal<?>[] ls = Arrays.copyOf(res.exprs, res.exprs.length, Literal[].class);
+								assert ls != null;
+								if (!e.init(ls, i, res)) {
+									log.printError();
+									return null;
+								}
+								log.printLog();
+								return new NonNullPair<>(info, e);
 							}
-							log.printLog();
-							return new NonNullPair<>(info, e);
+						} catch (final InstantiationException e) {
+							assert false;
+						} catch (final IllegalAccessException e) {
+							assert false;
 						}
-					} catch (final InstantiationException e) {
-						assert false;
-					} catch (final IllegalAccessException e) {
-						assert false;
 					}
 				}
+				if (hint == -1)
+					break;
+				hint = -1;
 			}
 			log.printError(null);
 			return null;
 		} finally {
 			log.stop();
+			if (candidates != null)
+				candidates.done();
+			if (call != null)
+				call.done();
 		}
 	}
 	
@@ -1293,7 +1370,7 @@ public class SkriptParser {
 	 * @return The index of the next bracket
 	 * @throws MalformedPatternException If the group is not closed
 	 */
-	private static int nextBracket(final String pattern, final char closingBracket, final char openingBracket, final int start, final boolean isGroup) throws MalformedPatternException {
+	static int nextBracket(final String pattern, final char closingBracket, final char openingBracket, final int start, final boolean isGroup) throws MalformedPatternException {
 		int n = 0;
 		for (int i = start; i < pattern.length(); i++) {
 			if (pattern.charAt(i) == '\\') {
@@ -1323,7 +1400,7 @@ public class SkriptParser {
 	 * @param from The index to start searching from
 	 * @return The next index where the character occurs unescaped or -1 if it doesn't occur.
 	 */
-	private static int nextUnescaped(final String pattern, final char c, final int from) {
+	static int nextUnescaped(final String pattern, final char c, final int from) {
 		for (int i = from; i < pattern.length(); i++) {
 			if (pattern.charAt(i) == '\\') {
 				i++;
@@ -1453,7 +1530,7 @@ public class SkriptParser {
 		return i + 1;
 	}
 	
-	private static int getGroupLevel(final String pattern, final int j) {
+	static int getGroupLevel(final String pattern, final int j) {
 		assert j >= 0 && j <= pattern.length() : j + "; " + pattern;
 		int level = 0;
 		for (int i = 0; i < j; i++) {
@@ -1480,23 +1557,25 @@ public class SkriptParser {
 	 * @return Parsed result or null on error (which does not imply that an error was printed)
 	 */
 	@Nullable
-	private final ParseResult parse_i(final String pattern, int i, int j) {
+	private final ParseResult parse_i(final CompiledPattern p, int i, int j) {
+		final String pattern = p.pattern;
 		ParseResult res;
 		int end, i2;
 		
 		while (j < pattern.length()) {
 			switch (pattern.charAt(j)) {
 				case '[': {
-					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+					final ParseLogHandler.Branch log = SkriptLogger.startParseLogBranch();
 					try {
-						res = parse_i(pattern, i, j + 1);
+						res = parse_i(p, i, j + 1);
 						if (res != null) {
 							log.printLog();
 							return res;
 						}
 						log.clear();
-						j = nextBracket(pattern, ']', '[', j + 1, true) + 1;
-						res = parse_i(pattern, i, j);
+						p.checkError(j);
+						j = p.getJump(j);
+						res = parse_i(p, i, j);
 						if (res == null)
 							log.printError();
 						else
@@ -1507,36 +1586,21 @@ public class SkriptParser {
 					}
 				}
 				case '(': {
-					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
+					final ParseLogHandler.Branch log = SkriptLogger.startParseLogBranch();
 					try {
-						final int start = j;
-						for (; j < pattern.length(); j++) {
+						final int[] alternatives = p.getAlternatives(j), marks = p.getMarks(j);
+						for (int k = 0; k < alternatives.length; k++) {
 							log.clear();
-							if (j == start || pattern.charAt(j) == '|') {
-								int mark = 0;
-								if (j != pattern.length() - 1 && ('0' <= pattern.charAt(j + 1) && pattern.charAt(j + 1) <= '9' || pattern.charAt(j + 1) == '-')) {
-									final int j2 = pattern.indexOf('¦', j + 2);
-									if (j2 != -1) {
-										try {
-											mark = Integer.parseInt(pattern.substring(j + 1, j2));
-											j = j2;
-										} catch (final NumberFormatException e) {}
-									}
-								}
-								res = parse_i(pattern, i, j + 1);
-								if (res != null) {
-									log.printLog();
-									res.mark ^= mark; // doesn't do anything if no mark was set as x ^ 0 == x
-									return res;
-								}
-							} else if (pattern.charAt(j) == '(') {
-								j = nextBracket(pattern, ')', '(', j + 1, true);
-							} else if (pattern.charAt(j) == ')') {
-								break;
-							} else if (j == pattern.length() - 1) {
-								throw new MalformedPatternException(pattern, "Missing closing bracket ')'");
+							res = parse_i(p, i, alternatives[k]);
+							if (res != null) {
+								log.printLog();
+								res.mark ^= marks[k]; // doesn't do anything if no mark was set as x ^ 0 == x
+								return res;
 							}
 						}
+						p.checkError(j);
+						if (p.clearAfterAlternatives(j))
+							log.clear();
 						log.printError();
 						return null;
 					} finally {
@@ -1546,11 +1610,9 @@ public class SkriptParser {
 				case '%': {
 					if (i == expr.length())
 						return null;
-					end = pattern.indexOf('%', j + 1);
-					if (end == -1)
-						throw new MalformedPatternException(pattern, "Odd number of '%'");
-					final String name = "" + pattern.substring(j + 1, end); // %type/anothertype%
-					final ExprInfo vi = getExprInfo(name);
+					p.checkError(j);
+					end = p.getJump(j);
+					final ExprInfo vi = p.getExprInfo(j);
 					if (end == pattern.length() - 1) {
 						i2 = expr.length();
 					} else {
@@ -1562,11 +1624,17 @@ public class SkriptParser {
 					try {
 						for (; i2 != -1; i2 = next(expr, i2, context)) {
 							log.clear();
-							res = parse_i(pattern, i2, end + 1);
+							res = parse_i(p, i2, end + 1);
 							if (res != null) {
 								final ParseLogHandler log2 = SkriptLogger.startParseLogHandler();
 								try { // Loop over all types that could go here
-									final Expression<?> e = new SkriptParser("" + expr.substring(i, i2), flags & vi.flagMask, context).parseExpression(vi);
+									final String subExpr = "" + expr.substring(i, i2);
+									final FailedExpressions failed = ParserInstance.get().getFailedExpressions();
+									if (failed != null && failed.replay(subExpr, flags & vi.flagMask, vi, context))
+										return null;
+									final Expression<?> e = new SkriptParser(subExpr, flags & vi.flagMask, context).parseExpression(vi);
+									if (e == null && failed != null)
+										failed.failed(subExpr, flags & vi.flagMask, vi, context, log2.getError());
 									if (e != null) {
 //										if (!vi.isPlural[k] && !e.isSingle()) { // Wrong number of arguments
 //											if (context == ParseContext.COMMAND) {
@@ -1580,7 +1648,7 @@ public class SkriptParser {
 										if (vi.time != 0) {
 											if (e instanceof Literal<?>)
 												return null;
-											if (ScriptLoader.hasDelayBefore == Kleenean.TRUE) {
+											if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE) {
 												Skript.error("Cannot use time states after the event has already passed", ErrorQuality.SEMANTIC_ERROR);
 												return null;
 											}
@@ -1591,7 +1659,7 @@ public class SkriptParser {
 										}
 										log2.printLog();
 										log.printLog();
-										res.exprs[countUnescaped(pattern, '%', 0, j) / 2] = e;
+										res.exprs[p.getExpressionIndex(j)] = e;
 										return res;
 									}
 									// results in useless errors most of the time
@@ -1609,23 +1677,16 @@ public class SkriptParser {
 					return null;
 				}
 				case '<': {
-					end = pattern.indexOf('>', j + 1);// not next()
-					if (end == -1)
-						throw new MalformedPatternException(pattern, "Missing closing regex bracket '>'");
-					Pattern p;
+					p.checkError(j);
+					end = p.getJump(j);
+					final ParseLogHandler.Branch log = SkriptLogger.startParseLogBranch();
 					try {
-						p = Pattern.compile(pattern.substring(j + 1, end));
-					} catch (final PatternSyntaxException e) {
-						throw new MalformedPatternException(pattern, "Invalid regex <" + pattern.substring(j + 1, end) + ">", e);
-					}
-					final ParseLogHandler log = SkriptLogger.startParseLogHandler();
-					try {
-						final Matcher m = p.matcher(expr);
+						final Matcher m = p.getRegex(j).matcher(expr);
 						for (i2 = next(expr, i, context); i2 != -1; i2 = next(expr, i2, context)) {
 							log.clear();
 							m.region(i, i2);
 							if (m.matches()) {
-								res = parse_i(pattern, i2, end + 1);
+								res = parse_i(p, i2, end + 1);
 								if (res != null) {
 									res.regexes.add(0, m.toMatchResult());
 									log.printLog();
@@ -1633,7 +1694,7 @@ public class SkriptParser {
 								}
 							}
 						}
-						log.printError(null);
+						log.printError();
 						return null;
 					} finally {
 						log.stop();
@@ -1644,7 +1705,8 @@ public class SkriptParser {
 					j++;
 					continue;
 				case '|':
-					final int newJ = nextBracket(pattern, ')', '(', j + 1, getGroupLevel(pattern, j) != 0);
+					p.checkError(j);
+					final int newJ = p.getJump(j);
 					if (newJ == -1) {
 						if (i == expr.length()) {
 							j = pattern.length();
@@ -1669,9 +1731,8 @@ public class SkriptParser {
 					j++;
 					continue;
 				case '\\':
+					p.checkError(j);
 					j++;
-					if (j == pattern.length())
-						throw new MalformedPatternException(pattern, "Must not end with a backslash");
 					//$FALL-THROUGH$
 				default:
 					if (i == expr.length() || Character.toLowerCase(pattern.charAt(j)) != Character.toLowerCase(expr.charAt(i)))
@@ -1681,7 +1742,7 @@ public class SkriptParser {
 			}
 		}
 		if (i == expr.length() && j == pattern.length())
-			return new ParseResult(this, pattern);
+			return new ParseResult(this, p);
 		return null;
 	}
 	
@@ -1784,7 +1845,7 @@ public class SkriptParser {
 		return true;
 	}
 	
-	private final static class ExprInfo {
+	final static class ExprInfo {
 		public ExprInfo(final int length) {
 			classes = new ClassInfo[length];
 			isPlural = new boolean[length];
@@ -1797,9 +1858,9 @@ public class SkriptParser {
 		int time = 0;
 	}
 	
-	private static final Map<String,ExprInfo> exprInfoCache = new HashMap<>();
+	private static final Map<String,ExprInfo> exprInfoCache = new ConcurrentHashMap<>();
 	
-	private static ExprInfo getExprInfo(String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
+	static ExprInfo getExprInfo(String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
 		ExprInfo r = exprInfoCache.get(s);
 		if (r == null) {
 			r = createExprInfo(s);
@@ -1809,6 +1870,17 @@ public class SkriptParser {
 		return r;
 	}
 	
+	/**
+	 * Resolves the expressions of all patterns of the given syntax elements and checks their default expressions in advance, so that matching
+	 * the patterns doesn't have to. Must be called once all types are registered, before any scripts are parsed.
+	 */
+	public static void resolvePatterns(final Collection<? extends SyntaxElementInfo<?>> infos) {
+		for (final SyntaxElementInfo<?> info : infos) {
+			for (final CompiledPattern pattern : info.compiledPatterns)
+				pattern.resolve();
+		}
+	}
+	
 	private static ExprInfo createExprInfo(String s) throws MalformedPatternException, IllegalArgumentException, SkriptAPIException {
 		final ExprInfo r = new ExprInfo(StringUtils.count(s, '/') + 1);
 		r.isOptional = s.startsWith("-");
@@ -0,0 +1,195 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+
+/**
+ * An index from the words the patterns of syntax elements require to these patterns, so that {@link SkriptParser} only tries to match a text against patterns
+ * whose required words all appear in the text.
+ * <p>
+ * A pattern can only fail this check if it could not match the text anyway, thus using the index does not change parse results.
+ * 
+ * @see CompiledPattern#getRequiredWords()
+ */
+public final class SyntaxElementIndex {
+	
+	@Nullable
+	private static SyntaxElementIndex index;
+	
+	private final static AtomicLong checkedPatterns = new AtomicLong(), skippedPatterns = new AtomicLong();
+	
+	/**
+	 * The required words of each pattern, by pattern id
+	 */
+	private final String[][] requiredWords;
+	
+	/**
+	 * Patterns which don't require any words
+	 */
+	private final BitSet unindexed = new BitSet();
+	
+	/**
+	 * Maps each word to the patterns that require it. Every pattern is only listed under the word it shares with the least other patterns.
+	 */
+	private final Map<String, int[]> patterns = new HashMap<>();
+	
+	private SyntaxElementIndex(final Collection<? extends SyntaxElementInfo<?>> infos) {
+		final List<String[]> words = new ArrayList<>();
+		final Map<String, Integer> wordCounts = new HashMap<>();
+		for (final SyntaxElementInfo<?> info : infos) {
+			if (info.firstPatternId != -1)
+				continue;
+			info.firstPatternId = words.size();
+			for (final CompiledPattern pattern : info.compiledPatterns) {
+				final Set<String> w = pattern.getRequiredWords();
+				if (w.isEmpty())
+					unindexed.set(words.size());
+				for (final String word : w) {
+					final Integer count = wordCounts.get(word);
+					wordCounts.put(word, count == null ? 1 : count + 1);
+				}
+				words.add(w.toArray(new String[w.size()]));
+			}
+		}
+		requiredWords = words.toArray(new String[words.size()][]);
+		
+		final Map<String, List<Integer>> patterns = new HashMap<>();
+		for (int id = 0; id < requiredWords.length; id++) {
+			String key = null;
+			for (final String word : requiredWords[id]) {
+				if (key == null || wordCounts.get(word) < wordCounts.get(key))
+					key = word;
+			}
+			if (key == null)
+				continue;
+			List<Integer> ids = patterns.get(key);
+			if (ids == null)
+				patterns.put(key, ids = new ArrayList<>());
+			ids.add(id);
+		}
+		for (final Entry<String, List<Integer>> e : patterns.entrySet()) {
+			final int[] ids = new int[e.getValue().size()];
+			for (int i = 0; i < ids.length; i++)
+				ids[i] = e.getValue().get(i);
+			this.patterns.put(e.getKey(), ids);
+		}
+	}
+	
+	/**
+	 * Builds the index for the given syntax elements. Called once all syntax elements have been registered.
+	 */
+	public static void build(final Collection<? extends SyntaxElementInfo<?>> infos) {
+		final SyntaxElementIndex i = new SyntaxElementIndex(infos);
+		index = i;
+		if (Skript.debug())
+			Skript.debug("Indexed " + i.requiredWords.length + " syntax patterns by " + i.patterns.size() + " words, " + i.unindexed.cardinality() + " patterns don't require any words");
+	}
+	
+	/**
+	 * @param text The text to be parsed
+	 * @return The patterns that may match the given text, or null if the index has not been built yet
+	 */
+	@Nullable
+	static Candidates getCandidates(final String text) {
+		final SyntaxElementIndex i = index;
+		if (i == null)
+			return null;
+		final Set<String> words = CompiledPattern.getWords(text);
+		final BitSet candidates = (BitSet) i.unindexed.clone();
+		for (final String word : words) {
+			final int[] ids = i.patterns.get(word);
+			if (ids == null)
+				continue;
+			idsLoop: for (final int id : ids) {
+				for (final String required : i.requiredWords[id]) {
+					if (!words.contains(required))
+						continue idsLoop;
+				}
+				candidates.set(id);
+			}
+		}
+		return new Candidates(candidates);
+	}
+	
+	/**
+	 * The patterns that may match a text, as returned by {@link SyntaxElementIndex#getCandidates(String)}.
+	 */
+	final static class Candidates {
+		
+		private final BitSet patterns;
+		
+		private int checked, skipped;
+		
+		Candidates(final BitSet patterns) {
+			this.patterns = patterns;
+		}
+		
+		/**
+		 * @return Whether the pattern with the given index of the given syntax element has to be tried. Syntax elements that are not in the index are always tried.
+		 */
+		boolean contains(final SyntaxElementInfo<?> info, final int pattern) {
+			if (info.firstPatternId == -1)
+				return true;
+			checked++;
+			if (patterns.get(info.firstPatternId + pattern))
+				return true;
+			skipped++;
+			return false;
+		}
+		
+		/**
+		 * Adds the statistics of this check to the totals reported by {@link SyntaxElementIndex#printStatistics()}.
+		 */
+		void done() {
+			if (checked != 0) {
+				checkedPatterns.addAndGet(checked);
+				skippedPatterns.addAndGet(skipped);
+				checked = skipped = 0;
+			}
+		}
+		
+	}
+	
+	/**
+	 * Prints how many patterns have been skipped thanks to the index since the last call of this method to the debug log.
+	 */
+	public static void printStatistics() {
+		if (!Skript.debug())
+			return;
+		final long checked = checkedPatterns.getAndSet(0), skipped = skippedPatterns.getAndSet(0);
+		if (checked == 0)
+			return;
+		Skript.debug("Syntax element index: skipped " + skipped + " of " + checked + " patterns (" + (skipped * 100 / checked) + "%)");
+	}
+	
+}
@@ -29,10 +29,23 @@ public class SyntaxElementInfo<E extends SyntaxElement> {
 	public final String[] patterns;
 	public final String originClassPath;
 	
+	/**
+	 * The {@link #patterns}, compiled once when the syntax element is registered so that {@link SkriptParser} does not have to search them on every match.
+	 */
+	final CompiledPattern[] compiledPatterns;
+	
+	/**
+	 * The id of the first pattern in the {@link SyntaxElementIndex}, or -1 if this syntax element is not indexed
+	 */
+	int firstPatternId = -1;
+	
 	public SyntaxElementInfo(final String[] patterns, final Class<E> c, final String originClassPath) throws IllegalArgumentException {
 		this.patterns = patterns;
 		this.c = c;
 		this.originClassPath = originClassPath;
+		compiledPatterns = new CompiledPattern[patterns.length];
+		for (int i = 0; i < patterns.length; i++)
+			compiledPatterns[i] = new CompiledPattern(patterns[i]);
 		try {
 			c.getConstructor();
 //			if (!c.getDeclaredConstructor().isAccessible())
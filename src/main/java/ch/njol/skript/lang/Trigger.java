@@ -25,6 +25,7 @@ import java.util.List;
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
+import ch.njol.skript.Skript;
 import ch.njol.skript.variables.Variables;
 
 /**
@@ -32,6 +33,11 @@ import ch.njol.skript.variables.Variables;
  */
 public class Trigger extends TriggerSection {
 	
+	/**
+	 * Whether triggers are executed by their {@link CompiledTrigger compiled} form, see {@link ch.njol.skript.SkriptConfig#compileTriggers}
+	 */
+	public static boolean compileTriggers = false;
+	
 	private final String name;
 	private final SkriptEvent event;
 	
@@ -40,6 +46,9 @@ public class Trigger extends TriggerSection {
 	private int line = -1; // -1 is default: it means there is no line number available
 	private String debugLabel;
 	
+	@Nullable
+	private CompiledTrigger compiled = null;
+	
 	public Trigger(final @Nullable File script, final String name, final SkriptEvent event, final List<TriggerItem> items) {
 		super(items);
 		this.script = script;
@@ -54,7 +63,7 @@ public class Trigger extends TriggerSection {
 	 * @return false if an exception occurred
 	 */
 	public boolean execute(final Event e) {
-		boolean success = TriggerItem.walk(this, e);
+		boolean success = compileTriggers && !Skript.debug() ? getCompiled().execute(e) : TriggerItem.walk(this, e);
 		// Clear local variables
 		Variables.removeLocals(e);
 		/*
@@ -73,6 +82,17 @@ public class Trigger extends TriggerSection {
 		return success;
 	}
 	
+	/**
+	 * Compiles this trigger when it's first executed, as the items of a trigger may still be linked after it has been created.
+	 * A compiled trigger is immutable, so it doesn't matter if several threads compile it at the same time.
+	 */
+	private CompiledTrigger getCompiled() {
+		CompiledTrigger c = compiled;
+		if (c == null)
+			compiled = c = new CompiledTrigger(this);
+		return c;
+	}
+	
 	@Override
 	@Nullable
 	protected TriggerItem walk(final Event e) {
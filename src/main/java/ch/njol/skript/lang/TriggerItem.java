@@ -90,18 +90,25 @@ public abstract class TriggerItem implements Debuggable {
 			
 			return true;
 		} catch (final StackOverflowError err) {
-			final Trigger t = start.getTrigger();
-			final File sc = t == null ? null : t.getScript();
-			Skript.adminBroadcast("<red>The script '<gold>" + (sc == null ? "<unknown>" : sc.getName()) + "<red>' infinitely (or excessively) repeated itself!");
-			if (Skript.debug())
-				err.printStackTrace();
+			handleStackOverflow(start.getTrigger(), err);
 		} catch (final Exception ex) {
-			if (ex.getStackTrace().length != 0) // empty exceptions have already been printed
-				Skript.exception(ex, i);
+			handleException(ex, i);
 		}
 		return false;
 	}
 	
+	static void handleStackOverflow(final @Nullable Trigger t, final StackOverflowError err) {
+		final File sc = t == null ? null : t.getScript();
+		Skript.adminBroadcast("<red>The script '<gold>" + (sc == null ? "<unknown>" : sc.getName()) + "<red>' infinitely (or excessively) repeated itself!");
+		if (Skript.debug())
+			err.printStackTrace();
+	}
+	
+	static void handleException(final Exception ex, final @Nullable TriggerItem item) {
+		if (ex.getStackTrace().length != 0) // empty exceptions have already been printed
+			Skript.exception(ex, item);
+	}
+	
 	/**
 	 * how much to indent each level
 	 */
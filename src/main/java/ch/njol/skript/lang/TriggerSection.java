@@ -49,11 +49,11 @@ public abstract class TriggerSection extends TriggerItem {
 	}
 	
 	protected TriggerSection(final SectionNode node) {
-		ScriptLoader.currentSections.add(this);
+		ScriptLoader.getCurrentSections().add(this);
 		try {
 			setTriggerItems(ScriptLoader.loadItems(node));
 		} finally {
-			ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+			ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 		}
 	}
 	
@@ -63,12 +63,12 @@ public abstract class TriggerSection extends TriggerItem {
 	protected TriggerSection() {}
 	
 	/**
-	 * Remember to add this section to {@link ScriptLoader#currentSections} before parsing child elements!
+	 * Remember to add this section to {@link ScriptLoader#getCurrentSections()} before parsing child elements!
 	 * 
 	 * <pre>
-	 * ScriptLoader.currentSections.add(this);
+	 * ScriptLoader.getCurrentSections().add(this);
 	 * setTriggerItems(ScriptLoader.loadItems(node));
-	 * ScriptLoader.currentSections.remove(ScriptLoader.currentSections.size() - 1);
+	 * ScriptLoader.getCurrentSections().remove(ScriptLoader.getCurrentSections().size() - 1);
 	 * </pre>
 	 * 
 	 * @param items
@@ -84,6 +84,14 @@ public abstract class TriggerSection extends TriggerItem {
 		}
 	}
 	
+	/**
+	 * @return The first item of this section, or null if it is empty
+	 */
+	@Nullable
+	final TriggerItem getFirst() {
+		return first;
+	}
+	
 	@Override
 	public TriggerSection setNext(final @Nullable TriggerItem next) {
 		super.setNext(next);
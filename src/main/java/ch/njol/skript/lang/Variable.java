@@ -47,12 +47,14 @@ import ch.njol.skript.classes.Changer.ChangerUtils;
 import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.classes.Comparator.Relation;
 import ch.njol.skript.lang.SkriptParser.ParseResult;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.lang.util.SimpleExpression;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Comparators;
 import ch.njol.skript.registrations.Converters;
 import ch.njol.skript.util.StringMode;
 import ch.njol.skript.util.Utils;
+import ch.njol.skript.variables.LocalSlots;
 import ch.njol.skript.variables.TypeHints;
 import ch.njol.skript.variables.Variables;
 import ch.njol.util.Checker;
@@ -85,6 +87,31 @@ public class Variable<T> implements Expression<T> {
 	@Nullable
 	private final Variable<?> source;
 	
+	/**
+	 * The slots of the trigger this local variable is used in, if its name is a constant and thus has a slot there, see {@link LocalSlots}
+	 */
+	@Nullable
+	private final LocalSlots slots;
+	private final int slot;
+	/**
+	 * The name of the variable as used by {@link Variables}, only set if this variable has a slot
+	 */
+	@Nullable
+	private final String slotName;
+	
+	/**
+	 * The {@link Variables#normalizeName(String) normalised} name of this variable if it's {@link VariableString#isSimple() simple}
+	 */
+	@Nullable
+	private final String simpleName;
+	
+	/**
+	 * The normalised name of the default variable to use if this variable is not set, or null if it can't have one. A simple global variable is its own
+	 * default variable, so it doesn't have one.
+	 */
+	@Nullable
+	private final String defaultName;
+	
 	@SuppressWarnings("unchecked")
 	private Variable(final VariableString name, final Class<? extends T>[] types, final boolean local, final boolean list, final @Nullable Variable<?> source) {
 		assert name != null;
@@ -101,6 +128,28 @@ public class Variable<T> implements Expression<T> {
 		this.superType = (Class<T>) Utils.getSuperType(types);
 		
 		this.source = source;
+		
+		if (source != null) {
+			slots = source.slots;
+			slot = source.slot;
+			slotName = source.slotName;
+			simpleName = source.simpleName;
+			defaultName = source.defaultName;
+		} else {
+			final String n = name.isSimple() ? Variables.normalizeName(name.toString(null)).intern() : null;
+			simpleName = n;
+			defaultName = n != null && !local ? null : Variables.normalizeName((local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName()).intern();
+			final LocalSlots slots = local && !list && n != null ? ParserInstance.get().getLocalSlots() : null;
+			if (slots != null && n != null && !n.contains(SEPARATOR)) {
+				this.slots = slots;
+				slot = slots.getSlot(n);
+				slotName = n;
+			} else {
+				this.slots = null;
+				slot = -1;
+				slotName = null;
+			}
+		}
 	}
 	
 	/**
@@ -273,15 +322,31 @@ public class Variable<T> implements Expression<T> {
 	 */
 	@Nullable
 	public Object getRaw(final Event e) {
-		final String n = name.toString(e);
+		final LocalSlots slots = this.slots;
+		final String slotName = this.slotName;
+		if (slots != null && slotName != null) {
+			final Object val = convertIfOldPlayer(slotName, e, Variables.getLocalVariable(slots, slot, slotName, e));
+			if (val == null)
+				return getDefault(e);
+			return val;
+		}
+		final String simpleName = this.simpleName;
+		final String n = simpleName != null ? simpleName : name.toString(e);
 		if (n.endsWith(Variable.SEPARATOR + "*") != list) // prevents e.g. {%expr%} where "%expr%" ends with "::*" from returning a Map
 			return null;
-		final Object val = !list ? convertIfOldPlayer(n, e, Variables.getVariable(n, e, local)) : Variables.getVariable(n, e, local);
+		final Object raw = simpleName != null ? Variables.getNormalizedVariable(n, e, local) : Variables.getVariable(n, e, local);
+		final Object val = !list ? convertIfOldPlayer(n, e, raw) : raw;
 		if (val == null)
-			return Variables.getVariable((local ? LOCAL_VARIABLE_TOKEN : "") + name.getDefaultVariableName(), e, false);
+			return getDefault(e);
 		return val;
 	}
 	
+	@Nullable
+	private Object getDefault(final Event e) {
+		final String defaultName = this.defaultName;
+		return defaultName == null ? null : Variables.getNormalizedVariable(defaultName, e, false);
+	}
+	
 	@SuppressWarnings("unchecked")
 	@Nullable
 	private Object get(final Event e) {
@@ -439,7 +504,17 @@ public class Variable<T> implements Expression<T> {
 	}
 	
 	private final void set(final Event e, final @Nullable Object value) {
-		Variables.setVariable("" + name.toString(e), value, e, local);
+		final LocalSlots slots = this.slots;
+		final String slotName = this.slotName;
+		if (slots != null && slotName != null) {
+			Variables.setLocalVariable(slots, slot, slotName, value, e);
+			return;
+		}
+		final String simpleName = this.simpleName;
+		if (simpleName != null)
+			Variables.setNormalizedVariable(simpleName, value, e, local);
+		else
+			Variables.setVariable("" + name.toString(e), value, e, local);
 	}
 	
 	private final void setIndex(final Event e, final String index, final @Nullable Object value) {
@@ -660,11 +735,8 @@ public class Variable<T> implements Expression<T> {
 		if(list)
 			return getConvertedArray(e);
 		final T o = getConverted(e);
-		if (o == null) {
-			final T[] r = (T[]) Array.newInstance(superType, 0);
-			assert r != null;
-			return r;
-		}
+		if (o == null)
+			return CollectionUtils.emptyArray(superType);
 		final T[] one = (T[]) Array.newInstance(superType, 1);
 		one[0] = o;
 		return one;
@@ -331,10 +331,16 @@ public class VariableString implements Expression<String> {
 	}
 	
 	private static void checkVariableConflicts(final String name, final StringMode mode, final @Nullable Iterable<Object> string) {
+		synchronized (variableNames) { // scripts may be parsed in parallel
+			checkVariableConflicts_i(name, mode, string);
+		}
+	}
+	
+	private static void checkVariableConflicts_i(final String name, final StringMode mode, final @Nullable Iterable<Object> string) {
 		if (mode != StringMode.VARIABLE_NAME || variableNames.containsKey(name))
 			return;
 		if (name.startsWith("%")) {// inside the if to only print this message once per variable
-			final Config script = ScriptLoader.currentScript;
+			final Config script = ScriptLoader.getCurrentScript();
 			if (script != null) {
 				if (disableVariableStartingWithExpressionWarnings && !ScriptOptions.getInstance().suppressesWarning(script.getFile(), "start expression")) {
 					Skript.warning("Starting a variable's name with an expression is discouraged ({" + name + "}). You could prefix it with the script's name: {" + StringUtils.substring(script.getFileName(), 0, -3) + "." + name + "}");
@@ -364,7 +370,7 @@ public class VariableString implements Expression<String> {
 			pattern = Pattern.compile(Pattern.quote(name));
 		}
 		if (!SkriptConfig.disableVariableConflictWarnings.value()) {
-			Config cs = ScriptLoader.currentScript; //Eclipse's nullness forced me to do this
+			Config cs = ScriptLoader.getCurrentScript(); //Eclipse's nullness forced me to do this
 			if (cs != null) {
 				if (!ScriptOptions.getInstance().suppressesWarning(cs.getFile(), "conflict")) {
 					for (final Entry<String, Pattern> e : variableNames.entrySet()) {
@@ -44,6 +44,7 @@ import ch.njol.skript.lang.ParseContext;
 import ch.njol.skript.lang.SkriptParser;
 import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Namespace.Key;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.log.ParseLogHandler;
 import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
@@ -72,8 +73,17 @@ public abstract class Functions {
 		}
 	}
 	
+	/**
+	 * @return The function that is currently being parsed, if any
+	 */
 	@Nullable
-	public static ScriptFunction<?> currentFunction = null;
+	public static ScriptFunction<?> getCurrentFunction() {
+		return ParserInstance.get().getCurrentFunction();
+	}
+	
+	public static void setCurrentFunction(final @Nullable ScriptFunction<?> function) {
+		ParserInstance.get().setCurrentFunction(function);
+	}
 	
 	/**
 	 * Function namespaces.
@@ -20,8 +20,8 @@
 package ch.njol.skript.lang.function;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -105,8 +105,8 @@ public class Namespace {
 	private final Map<String, Function<?>> functions;
 	
 	public Namespace() {
-		this.signatures = new HashMap<>();
-		this.functions = new HashMap<>();
+		this.signatures = new ConcurrentHashMap<>();
+		this.functions = new ConcurrentHashMap<>();
 	}
 	
 	@Nullable
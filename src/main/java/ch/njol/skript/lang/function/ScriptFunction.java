@@ -29,7 +29,6 @@ import ch.njol.skript.lang.Trigger;
 import ch.njol.skript.lang.function.Functions.FunctionData;
 import ch.njol.skript.lang.util.SimpleEvent;
 import ch.njol.skript.variables.Variables;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 /**
  * @author Peter Güttinger
  */
@@ -38,16 +37,15 @@ public class ScriptFunction<T> extends Function<T> {
 	@Nullable
 	final Trigger trigger;
 	
-	@SuppressFBWarnings("ST_WRITE_TO_STATIC_FROM_INSTANCE_METHOD")
 	public ScriptFunction(Signature<T> sign, SectionNode node) {
 		super(sign);
 		
-		Functions.currentFunction = this;
+		Functions.setCurrentFunction(this);
 		try {
 			trigger = new Trigger(node.getConfig().getFile(), "function " + sign.getName(),
 					new SimpleEvent(), ScriptLoader.loadItems(node));
 		} finally {
-			Functions.currentFunction = null;
+			Functions.setCurrentFunction(null);
 		}
 	}
 	
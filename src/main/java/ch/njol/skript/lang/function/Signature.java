@@ -75,7 +75,7 @@ public class Signature<T> {
 		this.returnType = returnType;
 		this.single = single;
 		
-		calls = new ArrayList<>();
+		calls = Collections.synchronizedList(new ArrayList<>()); // scripts may be parsed in parallel
 	}
 	
 	public String getName() {
@@ -0,0 +1,101 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.lang.ParseContext;
+import ch.njol.skript.log.LogEntry;
+import ch.njol.skript.log.SkriptLogger;
+
+/**
+ * Remembers which parts of the current line could not be parsed as an expression of some types, and the error that was printed for them, so that a part
+ * isn't parsed again for every pattern and every split of the line that has an expression there.
+ * <p>
+ * Only failures are remembered, as parsed expressions are modified by the elements they are used in and can thus not be used twice. This is reset
+ * whenever anything changes that expressions may depend on while they are parsed, see {@link ParserInstance}.
+ */
+public final class FailedExpressions {
+	
+	private final static Object NO_ERROR = new Object();
+	
+	private final Map<Key, Object> failures = new HashMap<>();
+	
+	/**
+	 * @param types An object describing the types the expression was parsed for, compared by identity
+	 * @return Whether parsing the given text failed before, in which case its error has been printed again
+	 */
+	public boolean replay(final String expr, final int flags, final Object types, final ParseContext context) {
+		if (failures.isEmpty())
+			return false;
+		final Object error = failures.get(new Key(expr, flags, types, context));
+		if (error == null)
+			return false;
+		if (error != NO_ERROR)
+			SkriptLogger.log((LogEntry) error);
+		return true;
+	}
+	
+	/**
+	 * Remembers that parsing the given text failed
+	 * 
+	 * @param error The error that was printed, if any
+	 */
+	public void failed(final String expr, final int flags, final Object types, final ParseContext context, final @Nullable LogEntry error) {
+		failures.put(new Key(expr, flags, types, context), error == null ? NO_ERROR : error);
+	}
+	
+	public void clear() {
+		failures.clear();
+	}
+	
+	private final static class Key {
+		
+		private final String expr;
+		private final int flags;
+		private final Object types;
+		private final ParseContext context;
+		
+		Key(final String expr, final int flags, final Object types, final ParseContext context) {
+			this.expr = expr;
+			this.flags = flags;
+			this.types = types;
+			this.context = context;
+		}
+		
+		@Override
+		public int hashCode() {
+			return (expr.hashCode() * 31 + flags) * 31 + System.identityHashCode(types);
+		}
+		
+		@Override
+		public boolean equals(final @Nullable Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			final Key other = (Key) obj;
+			return expr.equals(other.expr) && flags == other.flags && types == other.types && context == other.context;
+		}
+		
+	}
+	
+}
@@ -19,72 +19,275 @@
  */
 package ch.njol.skript.lang.parser;
 
-import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.logging.Level;
-import java.util.regex.Matcher;
+import java.util.function.Supplier;
 
 import org.bukkit.event.Event;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.ScriptLoader;
-import ch.njol.skript.Skript;
-import ch.njol.skript.SkriptCommand;
-import ch.njol.skript.SkriptEventHandler;
-import ch.njol.skript.aliases.Aliases;
-import ch.njol.skript.aliases.ItemType;
-import ch.njol.skript.classes.ClassInfo;
-import ch.njol.skript.command.CommandEvent;
-import ch.njol.skript.command.Commands;
-import ch.njol.skript.command.ScriptCommand;
+import ch.njol.skript.aliases.ScriptAliases;
+import ch.njol.skript.command.Argument;
 import ch.njol.skript.config.Config;
-import ch.njol.skript.config.EntryNode;
 import ch.njol.skript.config.Node;
-import ch.njol.skript.config.SectionNode;
-import ch.njol.skript.config.SimpleNode;
-import ch.njol.skript.effects.Delay;
-import ch.njol.skript.lang.Condition;
-import ch.njol.skript.lang.Conditional;
-import ch.njol.skript.lang.Expression;
+import ch.njol.skript.expressions.ExprFilter;
 import ch.njol.skript.lang.Loop;
-import ch.njol.skript.lang.ParseContext;
-import ch.njol.skript.lang.SelfRegisteringSkriptEvent;
-import ch.njol.skript.lang.SkriptEvent;
-import ch.njol.skript.lang.SkriptEventInfo;
-import ch.njol.skript.lang.SkriptParser;
-import ch.njol.skript.lang.Statement;
-import ch.njol.skript.lang.Trigger;
-import ch.njol.skript.lang.TriggerItem;
+import ch.njol.skript.lang.ParseCache;
 import ch.njol.skript.lang.TriggerSection;
-import ch.njol.skript.lang.While;
-import ch.njol.skript.lang.function.Function;
-import ch.njol.skript.lang.function.FunctionEvent;
-import ch.njol.skript.lang.function.Functions;
 import ch.njol.skript.lang.function.ScriptFunction;
-import ch.njol.skript.log.ErrorQuality;
-import ch.njol.skript.log.LogEntry;
-import ch.njol.skript.log.LogHandler;
-import ch.njol.skript.log.ParseLogHandler;
-import ch.njol.skript.log.RetainingLogHandler;
-import ch.njol.skript.log.SkriptLogger;
-import ch.njol.skript.registrations.Classes;
-import ch.njol.skript.registrations.Converters;
-import ch.njol.skript.variables.Variables;
-import ch.njol.util.Callback;
+import ch.njol.skript.log.HandlerList;
+import ch.njol.skript.variables.LocalSlots;
 import ch.njol.util.Kleenean;
-import ch.njol.util.NonNullPair;
-import ch.njol.util.StringUtils;
-import ch.njol.util.coll.CollectionUtils;
 
 /**
- * Instance of Skript parser. Runs asynchronously.
+ * The state of the parser while a script is being loaded, e.g. the current script, event and sections, the log handlers and the node errors are reported for.
+ * <p>
+ * All threads share one parser instance unless they {@link #run(Supplier) run} code with their own one, which is how {@link ScriptLoader} parses several
+ * scripts at once. The state should usually be accessed through the static methods of {@link ScriptLoader}, {@link ch.njol.skript.log.SkriptLogger} etc.
  */
-public class ParserInstance {
+public final class ParserInstance {
+	
+	private final static ParserInstance shared = new ParserInstance();
+	
+	private final static ThreadLocal<ParserInstance> instances = new ThreadLocal<>();
+	
+	/**
+	 * @return The parser instance of the current thread
+	 */
+	public static ParserInstance get() {
+		final ParserInstance i = instances.get();
+		return i == null ? shared : i;
+	}
+	
+	/**
+	 * Runs the given task with this parser instance as the current thread's one.
+	 *
+	 * @return What the task returned
+	 */
+	public <T> T run(final Supplier<T> task) {
+		final ParserInstance previous = instances.get();
+		instances.set(this);
+		try {
+			return task.get();
+		} finally {
+			if (previous == null)
+				instances.remove();
+			else
+				instances.set(previous);
+		}
+	}
+	
+	@Nullable
+	private Config currentScript = null;
+	
+	@Nullable
+	private String currentEventName = null;
+	
+	@Nullable
+	private Class<? extends Event>[] currentEvents = null;
+	
+	private Kleenean hasDelayBefore = Kleenean.FALSE;
+	
+	@Nullable
+	private LocalSlots localSlots = null;
+	
+	private final List<TriggerSection> currentSections = new ArrayList<>();
+	private final List<Loop> currentLoops = new ArrayList<>();
+	private final Map<String, String> currentOptions = new HashMap<>();
+	
+	@Nullable
+	private ScriptFunction<?> currentFunction = null;
+	
+	@Nullable
+	private ScriptAliases scriptAliases = null;
+	
+	@Nullable
+	private List<Argument<?>> currentArguments = null;
+	
+	@Nullable
+	private ExprFilter currentFilter = null;
+	
+	private final Deque<Map<String, Class<?>>> typeHints = new ArrayDeque<>();
+	
+	private String indentation = "";
+	
+	@Nullable
+	private Node node = null;
+	
+	private final HandlerList logHandlers = new HandlerList();
+	
+	@Nullable
+	private ParseCache parseCache = null;
+	
+	private final FailedExpressions failedExpressions = new FailedExpressions();
+	
+	public ParserInstance() {
+		typeHints.push(new HashMap<>());
+	}
+	
+	@Nullable
+	public Config getCurrentScript() {
+		return currentScript;
+	}
+	
+	public void setCurrentScript(final @Nullable Config currentScript) {
+		this.currentScript = currentScript;
+		failedExpressions.clear();
+	}
+	
+	@Nullable
+	public String getCurrentEventName() {
+		return currentEventName;
+	}
+	
+	@Nullable
+	public Class<? extends Event>[] getCurrentEvents() {
+		return currentEvents;
+	}
+	
+	public void setCurrentEvent(final @Nullable String name, final @Nullable Class<? extends Event>[] events) {
+		currentEventName = name;
+		currentEvents = events;
+		hasDelayBefore = Kleenean.FALSE;
+		localSlots = name == null ? null : new LocalSlots();
+		failedExpressions.clear();
+	}
+	
+	/**
+	 * @return The slots of the local variables of the trigger that is being parsed, which are new for every event that is set
+	 */
+	@Nullable
+	public LocalSlots getLocalSlots() {
+		return localSlots;
+	}
+	
+	public Kleenean getHasDelayBefore() {
+		return hasDelayBefore;
+	}
+	
+	public void setHasDelayBefore(final Kleenean hasDelayBefore) {
+		this.hasDelayBefore = hasDelayBefore;
+		failedExpressions.clear();
+	}
+	
+	public List<TriggerSection> getCurrentSections() {
+		return currentSections;
+	}
+	
+	public List<Loop> getCurrentLoops() {
+		return currentLoops;
+	}
+	
+	public Map<String, String> getCurrentOptions() {
+		return currentOptions;
+	}
+	
+	@Nullable
+	public ScriptFunction<?> getCurrentFunction() {
+		return currentFunction;
+	}
+	
+	public void setCurrentFunction(final @Nullable ScriptFunction<?> currentFunction) {
+		this.currentFunction = currentFunction;
+		failedExpressions.clear();
+	}
+	
+	@Nullable
+	public ScriptAliases getScriptAliases() {
+		return scriptAliases;
+	}
+	
+	public void setScriptAliases(final @Nullable ScriptAliases scriptAliases) {
+		this.scriptAliases = scriptAliases;
+	}
+	
+	/**
+	 * @return The arguments of the command that is being parsed, see {@link ch.njol.skript.command.Commands#getCurrentArguments()}
+	 */
+	@Nullable
+	public List<Argument<?>> getCurrentArguments() {
+		return currentArguments;
+	}
+	
+	public void setCurrentArguments(final @Nullable List<Argument<?>> currentArguments) {
+		this.currentArguments = currentArguments;
+	}
+	
+	/**
+	 * @return The filter whose condition is being parsed, see {@link ExprFilter#getParsing()}
+	 */
+	@Nullable
+	public ExprFilter getCurrentFilter() {
+		return currentFilter;
+	}
+	
+	public void setCurrentFilter(final @Nullable ExprFilter currentFilter) {
+		this.currentFilter = currentFilter;
+	}
+	
+	/**
+	 * @return The stack of local variable type hints, see {@link ch.njol.skript.variables.TypeHints}
+	 */
+	public Deque<Map<String, Class<?>>> getTypeHints() {
+		return typeHints;
+	}
+	
+	/**
+	 * @return The indentation of debug messages
+	 */
+	public String getIndentation() {
+		return indentation;
+	}
+	
+	public void setIndentation(final String indentation) {
+		this.indentation = indentation;
+	}
+	
+	/**
+	 * @return The node log entries are created for
+	 */
+	@Nullable
+	public Node getNode() {
+		return node;
+	}
+	
+	public void setNode(final @Nullable Node node) {
+		if (node != this.node)
+			failedExpressions.clear();
+		this.node = node;
+	}
+	
+	/**
+	 * @return The active log handlers of this parser instance, see {@link ch.njol.skript.log.SkriptLogger#startLogHandler(ch.njol.skript.log.LogHandler)}
+	 */
+	public HandlerList getLogHandlers() {
+		return logHandlers;
+	}
+	
+	/**
+	 * @return The cache of the script that is currently being parsed, if caching is enabled
+	 */
+	@Nullable
+	public ParseCache getParseCache() {
+		return parseCache;
+	}
+	
+	public void setParseCache(final @Nullable ParseCache parseCache) {
+		this.parseCache = parseCache;
+	}
+	
+	/**
+	 * @return The expressions of the current line that failed to parse, or null if they should not be remembered, i.e. if no line is being parsed or
+	 *         a {@link ParseCache} is used, which records the order in which expressions are parsed
+	 */
+	@Nullable
+	public FailedExpressions getFailedExpressions() {
+		return node == null || parseCache != null ? null : failedExpressions;
+	}
 	
 }
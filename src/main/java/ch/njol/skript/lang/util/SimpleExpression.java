@@ -57,6 +57,20 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	@Override
 	@Nullable
 	public final T getSingle(final Event e) {
+		return getSingleValue(e);
+	}
+	
+	/**
+	 * This is the internal method to get the value of a single expression, which is used by {@link #getSingle(Event)}.
+	 * <p>
+	 * The default implementation calls {@link #getArray(Event)}. Expressions that can determine their value without creating an array should override
+	 * this method, but must still throw an exception if there is more than one value.
+	 * 
+	 * @param e The event
+	 * @return The value of this expression, or null if it has none
+	 */
+	@Nullable
+	protected T getSingleValue(final Event e) {
 		final T[] all = getArray(e);
 		if (all.length == 0)
 			return null;
@@ -74,11 +88,8 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	@Override
 	public T[] getAll(final Event e) {
 		final T[] all = get(e);
-		if (all == null) {
-			final T[] r = (T[]) Array.newInstance(getReturnType(), 0);
-			assert r != null;
-			return r;
-		}
+		if (all == null)
+			return CollectionUtils.emptyArray(getReturnType());
 		if (all.length == 0)
 			return all;
 		int numNonNull = 0;
@@ -100,11 +111,8 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	@Override
 	public final T[] getArray(final Event e) {
 		final T[] all = get(e);
-		if (all == null) {
-			final T[] r = (T[]) Array.newInstance(getReturnType(), 0);
-			assert r != null;
-			return r;
-		}
+		if (all == null)
+			return CollectionUtils.emptyArray(getReturnType());
 		if (all.length == 0)
 			return all;
 		
@@ -253,7 +261,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	 */
 	@Override
 	public boolean setTime(final int time) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -262,7 +270,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Class<? extends Event> applicableEvent, final Expression<?>... mustbeDefaultVars) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -278,7 +286,7 @@ public abstract class SimpleExpression<T> implements Expression<T> {
 	}
 	
 	protected final boolean setTime(final int time, final Expression<?> mustbeDefaultVar, final Class<? extends Event>... applicableEvents) {
-		if (ScriptLoader.hasDelayBefore == Kleenean.TRUE && time != 0) {
+		if (ScriptLoader.getHasDelayBefore() == Kleenean.TRUE && time != 0) {
 			Skript.error("Can't use time states after the event has already passed");
 			return false;
 		}
@@ -19,35 +19,71 @@
  */
 package ch.njol.skript.log;
 
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
 
 import org.eclipse.jdt.annotation.Nullable;
 
 /**
- * @author Peter Güttinger
+ * The stack of active log handlers, iterated from the most recently added handler to the oldest one.
+ * <p>
+ * Handlers are started and stopped constantly while parsing, so this is a plain array instead of a linked list, and handlers are compared by identity.
  */
 public class HandlerList implements Iterable<LogHandler> {
 	
-	private final LinkedList<LogHandler> list = new LinkedList<>();
+	private LogHandler[] handlers = new LogHandler[16];
+	private int size = 0;
 	
 	public void add(final LogHandler h) {
-		list.addFirst(h);
+		if (size == handlers.length)
+			handlers = Arrays.copyOf(handlers, size * 2);
+		handlers[size++] = h;
 	}
 	
 	@Nullable
 	public LogHandler remove() {
-		return list.pop();
+		if (size == 0)
+			throw new NoSuchElementException();
+		final LogHandler h = handlers[--size];
+		handlers[size] = null;
+		return h;
+	}
+	
+	/**
+	 * @return The most recently added handler, or null if there are no active handlers
+	 */
+	@Nullable
+	public LogHandler peek() {
+		return size == 0 ? null : handlers[size - 1];
 	}
 	
-	@SuppressWarnings("null")
 	@Override
 	public Iterator<LogHandler> iterator() {
-		return list.iterator();
+		return new Iterator<LogHandler>() {
+			private int i = size;
+			
+			@Override
+			public boolean hasNext() {
+				return i > 0;
+			}
+			
+			@SuppressWarnings("null")
+			@Override
+			public LogHandler next() {
+				if (i <= 0)
+					throw new NoSuchElementException();
+				return handlers[--i];
+			}
+		};
 	}
 	
 	public boolean contains(final LogHandler h) {
-		return list.contains(h);
+		for (int i = size - 1; i >= 0; i--) {
+			if (handlers[i] == h)
+				return true;
+		}
+		return false;
 	}
 	
 }
@@ -61,6 +61,9 @@ public class ParseLogHandler extends LogHandler {
 	}
 	
 	public void error(final String error, final ErrorQuality quality) {
+		final LogEntry e = this.error;
+		if (e != null && quality.quality() <= e.getQuality())
+			return; // would be discarded anyway
 		log(new LogEntry(SkriptLogger.SEVERE, quality, error));
 	}
 	
@@ -130,4 +133,95 @@ public class ParseLogHandler extends LogHandler {
 		return error;
 	}
 	
+	/**
+	 * A speculative part of parsing that is logged to an existing parse log instead of a new one, as starting a handler for every optional part and
+	 * group of a pattern is expensive. Everything logged in the branch behaves exactly as if it had been logged to a new {@link ParseLogHandler} that
+	 * is then printed to the parse log, but nothing is created or copied for this. Use {@link SkriptLogger#startParseLogBranch()} to start a branch.
+	 */
+	public final static class Branch {
+		
+		private final ParseLogHandler log;
+		
+		/**
+		 * Whether the log was started for this branch, in which case the branch just delegates to it
+		 */
+		private final boolean started;
+		
+		private final int size;
+		@Nullable
+		private final LogEntry error;
+		
+		private boolean printed = false;
+		
+		Branch(final ParseLogHandler log, final boolean started) {
+			this.log = log;
+			this.started = started;
+			size = log.log.size();
+			error = log.error;
+		}
+		
+		/**
+		 * Clears all log messages of this branch except for the error
+		 */
+		public void clear() {
+			if (started) {
+				log.clear();
+				return;
+			}
+			discardLog("cleared");
+		}
+		
+		/**
+		 * Keeps the messages logged in this branch, but not its error
+		 */
+		public void printLog() {
+			printed = true;
+			if (started) {
+				log.printLog();
+				return;
+			}
+			discardError("not printed");
+		}
+		
+		/**
+		 * Keeps the error of this branch if it is better than the error before the branch, but none of the messages logged in it
+		 */
+		public void printError() {
+			printed = true;
+			if (started) {
+				log.printError();
+				return;
+			}
+			discardLog("not printed");
+		}
+		
+		/**
+		 * Discards everything logged in this branch if it wasn't printed
+		 */
+		public void stop() {
+			if (started)
+				log.stop();
+			else if (!printed) {
+				discardLog("branch stopped");
+				discardError("branch stopped");
+			}
+		}
+		
+		private void discardLog(final String reason) {
+			final List<LogEntry> entries = log.log;
+			for (int i = entries.size() - 1; i >= size; i--)
+				entries.remove(i).discarded(reason);
+		}
+		
+		private void discardError(final String reason) {
+			final LogEntry e = log.error;
+			if (e != error) {
+				log.error = error;
+				if (e != null)
+					e.discarded(reason);
+			}
+		}
+		
+	}
+	
 }
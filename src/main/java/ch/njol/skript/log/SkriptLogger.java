@@ -28,6 +28,7 @@ import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
 import ch.njol.skript.config.Node;
+import ch.njol.skript.lang.parser.ParserInstance;
 import ch.njol.skript.log.LogHandler.LogResult;
 
 /**
@@ -38,9 +39,6 @@ public abstract class SkriptLogger {
 	@SuppressWarnings("null")
 	public final static Level SEVERE = Level.SEVERE;
 	
-	@Nullable
-	private static Node node = null;
-	
 	private static Verbosity verbosity = Verbosity.NORMAL;
 	
 	static boolean debug;
@@ -54,8 +52,6 @@ public abstract class SkriptLogger {
 	@SuppressWarnings("null")
 	public final static Logger LOGGER = Bukkit.getServer() != null ? Bukkit.getLogger() : Logger.getLogger(Logger.GLOBAL_LOGGER_NAME); // cannot use Bukkit in tests
 	
-	private final static HandlerList handlers = new HandlerList();
-	
 	/**
 	 * Shorthand for <tt>{@link #startLogHandler(LogHandler) startLogHandler}(new {@link RetainingLogHandler}());</tt>
 	 * 
@@ -74,6 +70,20 @@ public abstract class SkriptLogger {
 		return startLogHandler(new ParseLogHandler());
 	}
 	
+	/**
+	 * Starts a speculative part of parsing that either uses the innermost log handler if it is a {@link ParseLogHandler}, or starts a new one otherwise.
+	 * The returned branch must be used like a parse log handler, i.e. be printed and stopped in the same way.
+	 * 
+	 * @return A new branch of the current parse log
+	 * @see ParseLogHandler.Branch
+	 */
+	public static ParseLogHandler.Branch startParseLogBranch() {
+		final LogHandler h = ParserInstance.get().getLogHandlers().peek();
+		if (h instanceof ParseLogHandler)
+			return new ParseLogHandler.Branch((ParseLogHandler) h, false);
+		return new ParseLogHandler.Branch(startParseLogHandler(), true);
+	}
+	
 	/**
 	 * Starts a log handler.
 	 * <p>
@@ -99,23 +109,28 @@ public abstract class SkriptLogger {
 	 * @see RedirectingLogHandler
 	 */
 	public static <T extends LogHandler> T startLogHandler(final T h) {
-		handlers.add(h);
+		ParserInstance.get().getLogHandlers().add(h);
 		return h;
 	}
 	
 	static void removeHandler(final LogHandler h) {
+		final HandlerList handlers = ParserInstance.get().getLogHandlers();
+		if (handlers.peek() == h) {
+			handlers.remove();
+			return;
+		}
 		if (!handlers.contains(h))
 			return;
-		if (!h.equals(handlers.remove())) {
+		if (h != handlers.remove()) {
 			int i = 1;
-			while (!h.equals(handlers.remove()))
+			while (h != handlers.remove())
 				i++;
 			LOGGER.severe("[Skript] " + i + " log handler" + (i == 1 ? " was" : "s were") + " not stopped properly! (at " + getCaller() + ") [if you're a server admin and you see this message please file a bug report at https://github.com/bensku/skript/issues if there is not already one]");
 		}
 	}
 	
 	static boolean isStopped(final LogHandler h) {
-		return !handlers.contains(h);
+		return !ParserInstance.get().getLogHandlers().contains(h);
 	}
 	
 	@Nullable
@@ -134,12 +149,12 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void setNode(final @Nullable Node node) {
-		SkriptLogger.node = node == null || node.getParent() == null ? null : node;
+		ParserInstance.get().setNode(node == null || node.getParent() == null ? null : node);
 	}
 	
 	@Nullable
 	public static Node getNode() {
-		return node;
+		return ParserInstance.get().getNode();
 	}
 	
 	/**
@@ -161,15 +176,30 @@ public abstract class SkriptLogger {
 	 * @see Skript#debug()
 	 */
 	public static void log(final Level level, final String message) {
-		log(new LogEntry(level, message, node));
+		log(level, ErrorQuality.SEMANTIC_ERROR, message);
+	}
+	
+	public static void log(final Level level, final ErrorQuality quality, final String message) {
+		if (level.intValue() >= Level.SEVERE.intValue() && !Skript.testing()) {
+			// errors worse than the current one of a parse log are dropped by it anyway, so don't bother creating an entry for them
+			final LogHandler h = ParserInstance.get().getLogHandlers().peek();
+			if (h instanceof ParseLogHandler) {
+				final LogEntry error = ((ParseLogHandler) h).getError();
+				if (error != null && quality.quality() <= error.quality)
+					return;
+			}
+		}
+		log(new LogEntry(level, quality.quality(), message, getNode()));
 	}
 	
 	public static void log(final @Nullable LogEntry entry) {
 		if (entry == null)
 			return;
+		final ParserInstance parser = ParserInstance.get();
+		final Node node = parser.getNode();
 		if (Skript.testing() && node != null && node.debug())
 			System.out.print("---> " + entry.level + "/" + ErrorQuality.get(entry.quality) + ": " + entry.getMessage() + " ::" + LogEntry.findCaller());
-		for (final LogHandler h : handlers) {
+		for (final LogHandler h : parser.getLogHandlers()) {
 			final LogResult r = h.log(entry);
 			switch (r) {
 				case CACHED:
@@ -194,7 +224,7 @@ public abstract class SkriptLogger {
 	}
 	
 	public static void logTracked(final Level level, final String message, final ErrorQuality quality) {
-		log(new LogEntry(level, quality.quality(), message, node, true));
+		log(new LogEntry(level, quality.quality(), message, getNode(), true));
 	}
 	
 	/**
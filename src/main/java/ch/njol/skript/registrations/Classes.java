@@ -24,6 +24,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.NotSerializableException;
+import java.io.OutputStream;
 import java.io.SequenceInputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -33,7 +34,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 import ch.njol.skript.localization.Language;
@@ -77,7 +81,8 @@ public abstract class Classes {
 	private static ClassInfo<?>[] classInfos = null;
 	private final static List<ClassInfo<?>> tempClassInfos = new ArrayList<ClassInfo<?>>();
 	private final static HashMap<Class<?>, ClassInfo<?>> exactClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
-	private final static HashMap<Class<?>, ClassInfo<?>> superClassInfos = new HashMap<Class<?>, ClassInfo<?>>();
+	// accessed by the variable save thread as well
+	private final static Map<Class<?>, ClassInfo<?>> superClassInfos = new ConcurrentHashMap<Class<?>, ClassInfo<?>>();
 	private final static HashMap<String, ClassInfo<?>> classInfosByCodeName = new HashMap<String, ClassInfo<?>>();
 	
 	/**
@@ -651,7 +656,22 @@ public abstract class Classes {
 	@SuppressWarnings("null")
 	private final static Charset UTF_8 = Charset.forName("UTF-8");
 	
+	/**
+	 * Cache for {@link #getYggdrasilStart(ClassInfo)}
+	 */
+	private final static Map<ClassInfo<?>, byte[]> yggdrasilStarts = new ConcurrentHashMap<>();
+	
+	/**
+	 * @return The start of all serialised values of the given class, which is not stored with the values. <b>Do not modify the returned array!</b>
+	 */
 	private static byte[] getYggdrasilStart(final ClassInfo<?> c) throws NotSerializableException {
+		byte[] r = yggdrasilStarts.get(c);
+		if (r == null)
+			yggdrasilStarts.put(c, r = createYggdrasilStart(c));
+		return r;
+	}
+	
+	private static byte[] createYggdrasilStart(final ClassInfo<?> c) throws NotSerializableException {
 		assert Enum.class.isAssignableFrom(Kleenean.class) && Tag.getType(Kleenean.class) == Tag.T_ENUM : Tag.getType(Kleenean.class); // TODO why is this check here?
 		final Tag t = Tag.getType(c.getC());
 		assert t.isWrapper() || t == Tag.T_STRING || t == Tag.T_OBJECT || t == Tag.T_ENUM;
@@ -671,16 +691,29 @@ public abstract class Classes {
 	}
 	
 	/**
-	 * Must be called on the appropriate thread for the given value (i.e. the main thread currently)
+	 * @param o A value to be stored in a variable
+	 * @return Whether the value must be serialised on Bukkit's main thread, see {@link Serializer#mustSyncSerialization()}
+	 */
+	public static boolean mustSyncSerialization(final Object o) {
+		@SuppressWarnings("null")
+		ClassInfo<?> ci = getSuperClassInfo(o.getClass());
+		if (ci.getSerializeAs() != null) {
+			ci = getExactClassInfo(ci.getSerializeAs());
+			if (ci == null)
+				return true;
+		}
+		final Serializer<?> s = ci.getSerializer();
+		return s == null || s.mustSyncSerialization();
+	}
+	
+	/**
+	 * Must be called on the appropriate thread for the given value, see {@link #mustSyncSerialization(Object)}
 	 */
 	@Nullable
 	public static SerializedVariable.Value serialize(@Nullable Object o) {
 		if (o == null)
 			return null;
 		
-		// temporary
-		assert Bukkit.isPrimaryThread();
-		
 		@SuppressWarnings("null")
 		ClassInfo<?> ci = getSuperClassInfo(o.getClass());
 		if (ci.getSerializeAs() != null) {
@@ -700,31 +733,97 @@ public abstract class Classes {
 		if (s == null) // value cannot be saved
 			return null;
 		
-		assert s.mustSyncDeserialization() ? Bukkit.isPrimaryThread() : true;
+		assert s.mustSyncSerialization() ? Bukkit.isPrimaryThread() : true;
 		
+		SerializationBuffer buffer = serializationBuffers.get();
+		if (buffer.inUse) // a serializer serialises another value
+			buffer = new SerializationBuffer();
+		buffer.inUse = true;
 		try {
-			final ByteArrayOutputStream bout = new ByteArrayOutputStream();
-			final YggdrasilOutputStream yout = Variables.yggdrasil.newOutputStream(bout);
+			final YggdrasilOutputStream yout = Variables.yggdrasil.newOutputStream(buffer);
 			yout.writeObject(o);
 			yout.flush();
 			yout.close();
-			final byte[] r = bout.toByteArray();
 			final byte[] start = getYggdrasilStart(ci);
 			for (int i = 0; i < start.length; i++)
-				assert r[i] == start[i] : o + " (" + ci.getC().getName() + "); " + Arrays.toString(start) + ", " + Arrays.toString(r);
-			final byte[] r2 = new byte[r.length - start.length];
-			System.arraycopy(r, start.length, r2, 0, r2.length);
+				assert buffer.buf[i] == start[i] : o + " (" + ci.getC().getName() + "); " + Arrays.toString(start) + ", " + Arrays.toString(Arrays.copyOf(buffer.buf, buffer.count));
+			// The start is the same for all values of the class, so only the rest is stored
+			final byte[] r = Arrays.copyOfRange(buffer.buf, start.length, buffer.count);
 			
-			Object d;
-			assert equals(o, d = deserialize(ci, new ByteArrayInputStream(r2))) : o + " (" + o.getClass() + ") != " + d + " (" + (d == null ? null : d.getClass()) + "): " + Arrays.toString(r);
+			final int interval = verificationInterval;
+			if (interval > 0 && verificationCounter.incrementAndGet() % interval == 0)
+				verify(o, ci, s, r);
 			
-			return new SerializedVariable.Value(ci.getCodeName(), r2);
+			return new SerializedVariable.Value(ci.getCodeName(), r);
 		} catch (final IOException e) { // shouldn't happen
 			Skript.exception(e);
 			return null;
+		} finally {
+			buffer.count = 0;
+			buffer.inUse = false;
+			if (buffer.buf.length > SerializationBuffer.MAX_RETAINED_SIZE)
+				serializationBuffers.remove();
 		}
 	}
 	
+	/**
+	 * Every how many serialised values one is deserialised again to check whether it is still equal to the original value. 0 to disable this check.
+	 */
+	public static volatile int verificationInterval = 0;
+	
+	private final static AtomicInteger verificationCounter = new AtomicInteger();
+	
+	private static void verify(final Object o, final ClassInfo<?> ci, final Serializer<?> s, final byte[] data) {
+		if (s.mustSyncDeserialization() && !Bukkit.isPrimaryThread())
+			return;
+		final Object d = deserialize(ci, data);
+		if (!equals(o, d))
+			Skript.error("The value " + o + " (" + o.getClass().getName() + ") is not equal to itself after saving and loading it: " + d + " (" + (d == null ? null : d.getClass().getName()) + ")");
+	}
+	
+	/**
+	 * An unsynchronised replacement for {@link ByteArrayOutputStream} whose buffer is reused for all values serialised on a thread.
+	 */
+	private final static class SerializationBuffer extends OutputStream {
+		
+		/**
+		 * Buffers that grew larger than this are not kept for the next value.
+		 */
+		final static int MAX_RETAINED_SIZE = 64 * 1024;
+		
+		byte[] buf = new byte[256];
+		int count = 0;
+		
+		boolean inUse = false;
+		
+		SerializationBuffer() {}
+		
+		private void ensureCapacity(final int capacity) {
+			if (capacity > buf.length)
+				buf = Arrays.copyOf(buf, Math.max(buf.length * 2, capacity));
+		}
+		
+		@Override
+		public void write(final int b) {
+			ensureCapacity(count + 1);
+			buf[count++] = (byte) b;
+		}
+		
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			ensureCapacity(count + len);
+			System.arraycopy(b, off, buf, count, len);
+			count += len;
+		}
+	}
+	
+	private final static ThreadLocal<SerializationBuffer> serializationBuffers = new ThreadLocal<SerializationBuffer>() {
+		@Override
+		protected SerializationBuffer initialValue() {
+			return new SerializationBuffer();
+		}
+	};
+	
 	private static boolean equals(final @Nullable Object o, final @Nullable Object d) {
 		if (o instanceof Chunk) { // CraftChunk does neither override equals nor is it a "coordinate-specific singleton" like Block
 			if (!(d instanceof Chunk))
@@ -86,10 +86,14 @@ public class Comparators {
 	@Nullable
 	public static <F, S> Comparator<? super F, ? super S> getComparator(final Class<F> f, final Class<S> s) {
 		final Pair<Class<?>, Class<?>> p = new Pair<Class<?>, Class<?>>(f, s);
-		if (comparatorsQuickAccess.containsKey(p))
-			return (Comparator<? super F, ? super S>) comparatorsQuickAccess.get(p);
+		synchronized (comparatorsQuickAccess) { // scripts may be parsed in parallel
+			if (comparatorsQuickAccess.containsKey(p))
+				return (Comparator<? super F, ? super S>) comparatorsQuickAccess.get(p);
+		}
 		final Comparator<?, ?> comp = getComparator_i(f, s);
-		comparatorsQuickAccess.put(p, comp);
+		synchronized (comparatorsQuickAccess) {
+			comparatorsQuickAccess.put(p, comp);
+		}
 		return (Comparator<? super F, ? super S>) comp;
 	}
 	
@@ -35,6 +35,7 @@ import ch.njol.skript.classes.Converter;
 import ch.njol.skript.classes.Converter.ConverterInfo;
 import ch.njol.skript.classes.Converter.ConverterUtils;
 import ch.njol.util.Pair;
+import ch.njol.util.coll.CollectionUtils;
 
 /**
  * Contains all registered converters and allows operating with them.
@@ -198,11 +199,8 @@ public abstract class Converters {
 	 */
 	@SuppressWarnings("unchecked")
 	public static <T> T[] convertArray(final @Nullable Object[] o, final Class<? extends T>[] to, final Class<T> superType) {
-		if (o == null) {
-			final T[] r = (T[]) Array.newInstance(superType, 0);
-			assert r != null;
-			return r;
-		}
+		if (o == null)
+			return CollectionUtils.emptyArray(superType);
 		for (final Class<? extends T> t : to)
 			if (t.isAssignableFrom(o.getClass().getComponentType()))
 				return (T[]) o;
@@ -304,10 +302,14 @@ public abstract class Converters {
 	@Nullable
 	public static <F, T> ConverterInfo<? super F, ? extends T> getConverterInfo(Class<F> from, Class<T> to) {
 		Pair<Class<?>, Class<?>> p = new Pair<>(from, to);
-		if (convertersCache.containsKey(p)) // can contain null to denote nonexistence of a converter
-			return (ConverterInfo<? super F, ? extends T>) convertersCache.get(p);
+		synchronized (convertersCache) { // scripts may be parsed in parallel
+			if (convertersCache.containsKey(p)) // can contain null to denote nonexistence of a converter
+				return (ConverterInfo<? super F, ? extends T>) convertersCache.get(p);
+		}
 		ConverterInfo<? super F, ? extends T> c = lookupConverterInfo(from, to);
-		convertersCache.put(p, c);
+		synchronized (convertersCache) {
+			convertersCache.put(p, c);
+		}
 		return c;
 	}
 	
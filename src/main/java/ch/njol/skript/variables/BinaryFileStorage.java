@@ -0,0 +1,686 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.log.SkriptLogger;
+import ch.njol.skript.registrations.Classes;
+import ch.njol.skript.util.ExceptionUtils;
+import ch.njol.skript.util.FileUtils;
+import ch.njol.skript.util.Task;
+import ch.njol.skript.util.Version;
+import ch.njol.skript.variables.SerializedVariable.Value;
+
+/**
+ * Stores variables in binary files: a compacted base file, plus a log of the
+ * changes made since the base file was written. The log is split into
+ * segments, and changes are only ever appended to the newest segment. Older
+ * segments are compacted in the background without locking the variables:
+ * several small ones are merged into one, and all of them are merged into the
+ * base file once they have grown large enough compared to it.
+ * <p>
+ * Every file starts with {@link #MAGIC} and {@link #FORMAT_VERSION}, followed
+ * by records of this form (all numbers are big-endian):
+ * <pre>
+ * int    length of the rest of the record
+ * int    length of the name, followed by the name in UTF-8
+ * int    length of the type, followed by the type in UTF-8, or -1 if the variable was deleted
+ * byte[] the serialized value, until the end of the record
+ * </pre>
+ */
+public class BinaryFileStorage extends VariablesStorage {
+	
+	private final static int MAGIC = 0x534B5642; // "SKVB"
+	private final static short FORMAT_VERSION = 1;
+	final static int HEADER_LENGTH = 6;
+	
+	private final static String SEGMENT_SUFFIX = ".log";
+	
+	/**
+	 * The newest segment is sealed and a new one is started once it is larger
+	 * than this many bytes.
+	 */
+	private final static long SEGMENT_SIZE = 4 * 1024 * 1024;
+	
+	/**
+	 * Sealed segments are only merged into the base file once they are larger
+	 * than this fraction of it, so compacting costs about the same as writing
+	 * the changes did.
+	 */
+	private final static double COMPACTION_RATIO = 0.5;
+	
+	/**
+	 * If there are at least this many sealed segments, but they are not yet
+	 * large enough to be merged into the base file, they are merged into one
+	 * segment instead. This limits the number of files read on startup.
+	 */
+	private final static int MERGED_SEGMENTS = 4;
+	
+	private final static int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * The newest segment. Must only be accessed while holding connectionLock.
+	 */
+	@Nullable
+	private DataOutputStream out;
+	
+	private long segmentSize;
+	private int segmentIndex;
+	
+	/**
+	 * Segments that are no longer written to, oldest first. Access must be
+	 * synchronized.
+	 */
+	private final List<File> sealedSegments = new ArrayList<>();
+	
+	/**
+	 * Held while compacting. Must be locked after connectionLock (if that lock
+	 * is used).
+	 */
+	private final Object compactionLock = new Object();
+	
+	@Nullable
+	private Task compactionTask;
+	
+	protected BinaryFileStorage(final String name) {
+		super(name);
+	}
+	
+	/**
+	 * A variable's type and serialized value, as read from a file.
+	 */
+	final static class Record {
+		
+		/**
+		 * Marks a deleted variable when reading segments that are merged into
+		 * another segment, as the variable may still exist in the base file.
+		 */
+		final static Record DELETED = new Record(null, null);
+		
+		@Nullable
+		final String type;
+		@Nullable
+		final byte[] data;
+		
+		Record(final @Nullable String type, final @Nullable byte[] data) {
+			this.type = type;
+			this.data = data;
+		}
+	}
+	
+	@Override
+	protected boolean load_i(final SectionNode n) {
+		SkriptLogger.setNode(null);
+		
+		final File file = this.file;
+		if (file == null) {
+			assert false : this;
+			return false;
+		}
+		
+		final List<File> segments = findSegments(file);
+		final Map<String, Record> records = new LinkedHashMap<>();
+		
+		final String csv = n.getValue("import csv");
+		if (csv != null && file.length() == 0 && segments.isEmpty()) {
+			final File csvFile = new File(csv);
+			if (csvFile.exists()) {
+				try {
+					final int invalid = importCSV(csvFile, records);
+					if (invalid > 0)
+						Skript.error(invalid + " invalid line" + (invalid == 1 ? "" : "s") + " in " + csvFile.getName() + " could not be imported");
+				} catch (final IOException e) {
+					Skript.error("Could not import the variables from " + csvFile.getName() + ": " + ExceptionUtils.toString(e));
+					return false;
+				}
+				try {
+					writeFile(file, records);
+				} catch (final IOException e) {
+					Skript.error("Could not write the imported variables to " + file.getName() + ": " + ExceptionUtils.toString(e));
+					return false;
+				}
+				Skript.info("Imported " + records.size() + " variables from " + csvFile.getName() + " into " + file.getName());
+			}
+		}
+		
+		IOException ioEx = null;
+		try {
+			if (records.isEmpty() && !read(file, records, false)) // Nothing imported, or the base file would contain the same
+				Skript.warning("Ignored an incomplete change at the end of " + file.getName());
+			for (final File segment : segments) {
+				if (!read(segment, records, false)) // The server likely crashed while writing the last change
+					Skript.warning("Ignored an incomplete change at the end of " + segment.getName());
+			}
+		} catch (final IOException e) {
+			ioEx = e;
+		}
+		
+		synchronized (sealedSegments) {
+			sealedSegments.addAll(segments);
+		}
+		segmentIndex = segments.isEmpty() ? 0 : getSegmentIndex(file, segments.get(segments.size() - 1));
+		if (!connect())
+			return false;
+		
+		final List<String> failed = new ArrayList<>();
+		final VariablesLoader loader = new VariablesLoader(this, (name, type) -> failed.add(name));
+		try {
+			for (final Entry<String, Record> e : records.entrySet()) {
+				final Record r = e.getValue();
+				final String typeName = r.type;
+				final byte[] data = r.data;
+				assert typeName != null && data != null; // deletions are not kept
+				final ClassInfo<?> type = Classes.getClassInfoNoError(typeName);
+				if (type == null || type.getSerializer() == null) {
+					failed.add(e.getKey());
+					continue;
+				}
+				loader.load(e.getKey(), type, data);
+			}
+		} finally {
+			loader.finish();
+		}
+		
+		final int unsuccessful = failed.size();
+		if (unsuccessful > 0) {
+			final StringBuilder invalid = new StringBuilder();
+			for (final String name : failed) {
+				if (invalid.length() != 0)
+					invalid.append(", ");
+				invalid.append(name);
+			}
+			Skript.error(unsuccessful + " variable" + (unsuccessful == 1 ? "" : "s") + " could not be loaded!");
+			Skript.error("Affected variables: " + invalid.toString());
+		}
+		if (ioEx != null) {
+			Skript.error("An I/O error occurred while loading the variables: " + ExceptionUtils.toString(ioEx));
+			Skript.error("This means that some to all variables could not be loaded!");
+			return false;
+		}
+		
+		compactionTask = new Task(Skript.getInstance(), 60 * 20, 60 * 20, true) {
+			@Override
+			public void run() {
+				compact();
+			}
+		};
+		
+		return true;
+	}
+	
+	@Override
+	protected void allLoaded() {
+		// no transaction support
+	}
+	
+	@Override
+	protected boolean requiresFile() {
+		return true;
+	}
+	
+	@Override
+	protected File getFile(final String file) {
+		return new File(file);
+	}
+	
+	private static File getSegmentFile(final File file, final int index) {
+		return new File(file.getPath() + "." + index + SEGMENT_SUFFIX);
+	}
+	
+	private static int getSegmentIndex(final File file, final File segment) {
+		final String name = segment.getName();
+		final int start = file.getName().length() + 1, end = name.length() - SEGMENT_SUFFIX.length();
+		if (start >= end)
+			return -1;
+		try {
+			return Integer.parseInt(name.substring(start, end));
+		} catch (final NumberFormatException e) {
+			return -1;
+		}
+	}
+	
+	/**
+	 * @return The log segments that belong to the given base file, oldest first.
+	 */
+	private static List<File> findSegments(final File file) {
+		final List<File> segments = new ArrayList<>();
+		final File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+		if (files == null)
+			return segments;
+		final String prefix = file.getName() + ".";
+		for (final File f : files) {
+			if (f.isFile() && f.getName().startsWith(prefix) && f.getName().endsWith(SEGMENT_SUFFIX) && getSegmentIndex(file, f) >= 0)
+				segments.add(f);
+		}
+		segments.sort(Comparator.comparingInt(f -> getSegmentIndex(file, f)));
+		return segments;
+	}
+	
+	/**
+	 * Reads the variables of a CSV file, as written by {@link FlatFileStorage}.
+	 * 
+	 * @return The number of invalid lines, which were skipped.
+	 * @throws IOException If the file could not be read, or was written by a version of Skript older than 2.1
+	 */
+	static int importCSV(final File csv, final Map<String, Record> records) throws IOException {
+		final Version v2_1 = new Version(2, 1);
+		int invalid = 0;
+		try (BufferedReader r = new BufferedReader(new InputStreamReader(new FileInputStream(csv), FlatFileStorage.UTF_8))) {
+			String line;
+			while ((line = r.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					if (line.startsWith("# version:")) {
+						boolean old = false;
+						try {
+							old = new Version("" + line.substring("# version:".length()).trim()).isSmallerThan(v2_1);
+						} catch (final IllegalArgumentException e) {}
+						if (old)
+							throw new IOException(csv.getName() + " was written by an old version of Skript. Please load it as a CSV database once before importing it.");
+					}
+					continue;
+				}
+				final String[] split = FlatFileStorage.splitCSV(line);
+				if (split == null || split.length != 3) {
+					invalid++;
+					continue;
+				}
+				if (split[1].equals("null"))
+					continue;
+				records.put("" + split[0], new Record("" + split[1], FlatFileStorage.decode("" + split[2])));
+			}
+		}
+		return invalid;
+	}
+	
+	/**
+	 * Reads a file sequentially and applies its records to the given map, i.e.
+	 * later records of a variable replace earlier ones. Records read before
+	 * an exception is thrown have already been applied.
+	 * 
+	 * @param keepDeletions Whether deleted variables are kept as
+	 *            {@link Record#DELETED} instead of being removed.
+	 * @return Whether the file ended with a complete record, i.e. false if
+	 *         the last record was only partially written. A record whose
+	 *         length runs past the end of the file counts as partially
+	 *         written, its length is never trusted beyond the file's size.
+	 * @throws IOException If the file could not be read or is corrupted.
+	 */
+	static boolean read(final File f, final Map<String, Record> records, final boolean keepDeletions) throws IOException {
+		try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+			buf.flip();
+			if (!fill(channel, buf, HEADER_LENGTH)) {
+				if (buf.hasRemaining())
+					throw new IOException(f.getName() + " is not a variables file");
+				return true; // empty
+			}
+			if (buf.getInt() != MAGIC)
+				throw new IOException(f.getName() + " is not a variables file");
+			final short version = buf.getShort();
+			if (version > FORMAT_VERSION)
+				throw new IOException(f.getName() + " was written by a newer version of Skript");
+			
+			boolean complete = true;
+			while (fill(channel, buf, 4)) {
+				final int length = buf.getInt();
+				if (length < 8)
+					throw new IOException(f.getName() + " is corrupted");
+				if (length > channel.size() - channel.position() + buf.remaining()) {
+					complete = false;
+					break;
+				}
+				if (length > buf.capacity()) {
+					final ByteBuffer bigger = ByteBuffer.allocate(length);
+					bigger.put(buf);
+					bigger.flip();
+					buf = bigger;
+				}
+				if (!fill(channel, buf, length)) {
+					complete = false;
+					break;
+				}
+				
+				final int end = buf.position() + length;
+				final int nameLength = buf.getInt();
+				final String name = readString(buf, nameLength, end - 4, f);
+				final int typeLength = buf.getInt();
+				if (typeLength == -1) {
+					if (buf.position() != end)
+						throw new IOException(f.getName() + " is corrupted");
+					if (keepDeletions)
+						records.put(name, Record.DELETED);
+					else
+						records.remove(name);
+					continue;
+				}
+				final String type = readString(buf, typeLength, end, f);
+				final byte[] data = new byte[end - buf.position()];
+				buf.get(data);
+				records.put(name, new Record(type, data));
+			}
+			return complete && !buf.hasRemaining();
+		}
+	}
+	
+	/**
+	 * @param end The position in the buffer the string must end before, i.e. the end of the record it belongs to
+	 */
+	private static String readString(final ByteBuffer buf, final int length, final int end, final File f) throws IOException {
+		if (length < 0 || length > end - buf.position())
+			throw new IOException(f.getName() + " is corrupted");
+		final String s = new String(buf.array(), buf.arrayOffset() + buf.position(), length, FlatFileStorage.UTF_8);
+		buf.position(buf.position() + length);
+		return s;
+	}
+	
+	/**
+	 * Makes sure that the given buffer (in read mode) has at least the given
+	 * amount of bytes remaining, unless the end of the file is reached.
+	 * 
+	 * @return Whether enough bytes are available.
+	 */
+	private static boolean fill(final FileChannel channel, final ByteBuffer buf, final int bytes) throws IOException {
+		if (buf.remaining() >= bytes)
+			return true;
+		assert buf.capacity() >= bytes;
+		buf.compact();
+		while (buf.position() < bytes) {
+			if (channel.read(buf) == -1)
+				break;
+		}
+		buf.flip();
+		return buf.remaining() >= bytes;
+	}
+	
+	/**
+	 * @return The amount of bytes written.
+	 */
+	static int writeRecord(final DataOutputStream out, final String name, final @Nullable String type, final @Nullable byte[] data) throws IOException {
+		final byte[] nameBytes = name.getBytes(FlatFileStorage.UTF_8);
+		final byte[] typeBytes = type == null ? null : type.getBytes(FlatFileStorage.UTF_8);
+		final int length = 8 + nameBytes.length + (typeBytes == null ? 0 : typeBytes.length) + (typeBytes == null || data == null ? 0 : data.length);
+		out.writeInt(length);
+		out.writeInt(nameBytes.length);
+		out.write(nameBytes);
+		if (typeBytes == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(typeBytes.length);
+			out.write(typeBytes);
+			if (data != null)
+				out.write(data);
+		}
+		return 4 + length;
+	}
+	
+	static DataOutputStream openFile(final File f) throws IOException {
+		final boolean isNew = f.length() == 0;
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f, true), BUFFER_SIZE));
+		if (isNew) {
+			out.writeInt(MAGIC);
+			out.writeShort(FORMAT_VERSION);
+		}
+		return out;
+	}
+	
+	/**
+	 * Writes the given variables to a file, replacing it atomically.
+	 */
+	private static void writeFile(final File f, final Map<String, Record> records) throws IOException {
+		final File tempFile = new File(f.getPath() + ".temp");
+		tempFile.delete();
+		try (DataOutputStream out = openFile(tempFile)) {
+			for (final Entry<String, Record> e : records.entrySet())
+				writeRecord(out, e.getKey(), e.getValue().type, e.getValue().data);
+		}
+		FileUtils.move(tempFile, f, true);
+	}
+	
+	/**
+	 * Reads the given files in order and writes the result to the target
+	 * file, which may be one of them.
+	 * 
+	 * @param keepDeletions Whether deleted variables are written as such,
+	 *            which is required unless the base file is the first source.
+	 */
+	static void merge(final List<File> sources, final File target, final boolean keepDeletions) throws IOException {
+		final Map<String, Record> records = new LinkedHashMap<>();
+		for (final File source : sources)
+			read(source, records, keepDeletions);
+		writeFile(target, records);
+	}
+	
+	/**
+	 * Merges the sealed segments into the base file if they are large enough
+	 * compared to it, or else merges them into one segment if there are many.
+	 * This only works on the files and doesn't block saving variables.
+	 */
+	final void compact() {
+		final File file = this.file;
+		if (file == null)
+			return;
+		synchronized (compactionLock) {
+			final List<File> segments;
+			synchronized (sealedSegments) {
+				segments = new ArrayList<>(sealedSegments);
+			}
+			long sealedSize = 0;
+			for (final File segment : segments)
+				sealedSize += segment.length();
+			final boolean intoBase = sealedSize > 0 && sealedSize >= file.length() * COMPACTION_RATIO;
+			if (!intoBase && segments.size() < MERGED_SEGMENTS)
+				return;
+			
+			// If the server crashes before the merged files are deleted, they are just loaded again before the newest one, which contains the same changes
+			final List<File> merged;
+			try {
+				if (intoBase) {
+					final List<File> sources = new ArrayList<>(segments.size() + 1);
+					sources.add(file);
+					sources.addAll(segments);
+					merge(sources, file, false);
+					merged = segments;
+				} else {
+					merge(segments, segments.get(segments.size() - 1), true);
+					merged = segments.subList(0, segments.size() - 1);
+				}
+			} catch (final IOException e) {
+				Skript.error("Could not compact the variables of the database '" + databaseName + "' (no variables are lost): " + ExceptionUtils.toString(e));
+				return;
+			}
+			for (final File segment : merged) {
+				if (!segment.delete())
+					Skript.warning("Could not delete " + segment.getName() + " after compacting it");
+			}
+			synchronized (sealedSegments) {
+				sealedSegments.removeAll(merged);
+			}
+		}
+	}
+	
+	/**
+	 * Closes the newest segment. Must be called while holding connectionLock.
+	 */
+	private void seal() throws IOException {
+		final DataOutputStream out = this.out;
+		if (out == null)
+			return;
+		this.out = null;
+		out.close();
+		final File file = this.file;
+		assert file != null;
+		synchronized (sealedSegments) {
+			sealedSegments.add(getSegmentFile(file, segmentIndex));
+		}
+	}
+	
+	@Override
+	protected boolean save(final String name, final @Nullable String type, final @Nullable byte[] value) {
+		synchronized (connectionLock) {
+			final DataOutputStream out = this.out;
+			if (out == null) {
+				Skript.error("Cannot save the variable {" + name + "} to the database '" + databaseName + "' as it is not connected");
+				return false;
+			}
+			try {
+				segmentSize += writeRecord(out, name, type, value);
+				out.flush();
+				if (segmentSize >= SEGMENT_SIZE) {
+					seal();
+					return connect();
+				}
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot save the variable {" + name + "} to the database '" + databaseName + "'");
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Appends all records of the batch before flushing the segment once.
+	 */
+	@Override
+	protected boolean save(final Collection<SerializedVariable> vars) {
+		synchronized (connectionLock) {
+			final DataOutputStream out = this.out;
+			if (out == null) {
+				Skript.error("Cannot save " + vars.size() + " variables to the database '" + databaseName + "' as it is not connected");
+				return false;
+			}
+			try {
+				for (final SerializedVariable var : vars) {
+					final Value d = var.value;
+					segmentSize += writeRecord(out, var.name, d == null ? null : d.type, d == null ? null : d.data);
+				}
+				out.flush();
+				writtenChanges.addAndGet(vars.size());
+				if (segmentSize >= SEGMENT_SIZE) {
+					seal();
+					return connect();
+				}
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot save variables to the database '" + databaseName + "'");
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Starts a new segment.
+	 */
+	@Override
+	protected final boolean connect() {
+		synchronized (connectionLock) {
+			if (out != null)
+				return true;
+			final File file = this.file;
+			assert file != null;
+			final File segment = getSegmentFile(file, ++segmentIndex);
+			try {
+				out = openFile(segment);
+				segmentSize = segment.length();
+				return true;
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot open " + segment.getName() + " to save variables to");
+				return false;
+			}
+		}
+	}
+	
+	/**
+	 * Seals the newest segment. Compacting is left to the background task.
+	 */
+	@Override
+	protected final void disconnect() {
+		synchronized (connectionLock) {
+			try {
+				seal();
+			} catch (final IOException e) {
+				Skript.exception(e, "Cannot close the variables file of the database '" + databaseName + "'");
+			}
+		}
+	}
+	
+	/**
+	 * Copies the base file and the sealed segments as they are. Only starting
+	 * a new segment blocks saving variables, copying only blocks compaction.
+	 * The segments of the backup are named like the ones of the base file, so
+	 * the backup can be loaded like it.
+	 */
+	@Override
+	protected void backup(final File file) {
+		synchronized (connectionLock) {
+			disconnect();
+			connect();
+		}
+		synchronized (compactionLock) {
+			final List<File> segments;
+			synchronized (sealedSegments) {
+				segments = new ArrayList<>(sealedSegments);
+			}
+			try {
+				final File backup = FileUtils.backup(file);
+				for (final File segment : segments)
+					FileUtils.copy(segment, getSegmentFile(backup, getSegmentIndex(file, segment)));
+			} catch (final IOException e) {
+				Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
+			}
+		}
+	}
+	
+	@Override
+	public void close() {
+		super.close();
+		final Task ct = compactionTask;
+		if (ct != null)
+			ct.cancel();
+		final Task bt = backupTask;
+		if (bt != null)
+			bt.cancel();
+		disconnect();
+	}
+	
+}
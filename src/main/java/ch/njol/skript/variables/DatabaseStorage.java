@@ -23,7 +23,11 @@ import java.io.File;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.Map.Entry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.Callable;
 
@@ -45,6 +49,7 @@ import ch.njol.skript.log.SkriptLogger;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Timespan;
+import ch.njol.skript.variables.SerializedVariable.Value;
 import ch.njol.util.SynchronizedReference;
 
 /**
@@ -125,6 +130,16 @@ public class DatabaseStorage extends VariablesStorage {
 	private boolean monitor = false;
 	long monitor_interval;
 
+	/**
+	 * If positive, changed variables are only written to the database in this interval (in milliseconds), and only with their latest value.
+	 */
+	private long writeBehindInterval = 0;
+
+	/**
+	 * The latest changes of variables that have not yet been written to the database if {@link #writeBehindInterval write behind} is enabled. Must be synchronised on.
+	 */
+	private final Map<String, SerializedVariable> dirtyVariables = new LinkedHashMap<>();
+
 	private final static String guid = "" + UUID.randomUUID().toString();
 
 	/**
@@ -178,6 +193,13 @@ public class DatabaseStorage extends VariablesStorage {
 			monitor = monitor_changes;
 			this.monitor_interval = monitor_interval.getMilliSeconds();
 
+			if (n.getValue("write behind") != null) {
+				final Timespan writeBehind = getValue(n, "write behind", Timespan.class);
+				if (writeBehind == null)
+					return false;
+				writeBehindInterval = writeBehind.getMilliSeconds();
+			}
+
 			final Database db;
 			try {
 				final Object o = type.initialise(this, n);
@@ -243,19 +265,20 @@ public class DatabaseStorage extends VariablesStorage {
 				if (hasOldTable) {
 					if (!hadNewTable) {
 						Skript.info("[2.1] Updating the database '" + databaseName + "' to the new format...");
+						Variables.lockAllShards(false);
 						try {
-							Variables.getReadLock().lock();
-							for (final Entry<String, Object> v : Variables.getVariablesHashMap().entrySet()) {
-								if (accept(v.getKey())) {// only one database was possible, so only checking this database is correct
-									@SuppressWarnings("null")
-									final SerializedVariable var = Variables.serialize(v.getKey(), v.getValue());
-									final SerializedVariable.Value d = var.value;
-									save(var.name, d == null ? null : d.type, d == null ? null : d.data);
-								}
+							for (final VariablesShard shard : Variables.getShards()) {
+								shard.map.forEach((name, value) -> {
+									if (accept(name)) {// only one database was possible, so only checking this database is correct
+										final SerializedVariable var = Variables.serialize(name, value);
+										final SerializedVariable.Value d = var.value;
+										save(var.name, d == null ? null : d.type, d == null ? null : d.data);
+									}
+								});
 							}
-							Skript.info("Updated and transferred " + Variables.getVariablesHashMap().size() + " variables to the new table.");
+							Skript.info("Updated and transferred " + Variables.numVariables() + " variables to the new table.");
 						} finally {
-							Variables.getReadLock().unlock();
+							Variables.unlockAllShards(false);
 						}
 					}
 					db.query("DELETE FROM " + OLD_TABLE_NAME + " WHERE value IS NULL");
@@ -340,6 +363,21 @@ public class DatabaseStorage extends VariablesStorage {
 			}
 		}, "Skript database '" + databaseName + "' transaction committing thread").start();
 
+		if (writeBehindInterval > 0) {
+			Skript.newThread(new Runnable() {
+				@Override
+				public void run() {
+					while (!closed) {
+						try {
+							Thread.sleep(writeBehindInterval);
+						} catch (final InterruptedException e) {}
+						if (!closed) // close() writes the remaining variables itself
+							flushDirtyVariables();
+					}
+				}
+			}, "Skript database '" + databaseName + "' write behind thread").start();
+		}
+
 		if (monitor) {
 			Skript.newThread(new Runnable() {
 				@Override
@@ -494,14 +532,18 @@ public class DatabaseStorage extends VariablesStorage {
 	@Nullable
 	PreparedStatement monitorCleanUpQuery;
 
+	private static void checkSize(final String name, final @Nullable byte[] value) {
+		// REMIND get the actual maximum size from the database
+		if (name.length() > MAX_VARIABLE_NAME_LENGTH)
+			Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
+		if (value != null && value.length > MAX_VALUE_SIZE)
+			Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+	}
+
 	@Override
 	protected boolean save(final String name, final @Nullable String type, final @Nullable byte[] value) {
 		synchronized (db) {
-			// REMIND get the actual maximum size from the database
-			if (name.length() > MAX_VARIABLE_NAME_LENGTH)
-				Skript.error("The name of the variable {" + name + "} is too long to be saved in a database (length: " + name.length() + ", maximum allowed: " + MAX_VARIABLE_NAME_LENGTH + ")! It will be truncated and won't bet available under the same name again when loaded.");
-			if (value != null && value.length > MAX_VALUE_SIZE)
-				Skript.error("The variable {" + name + "} cannot be saved in the database as its value's size (" + value.length + ") exceeds the maximum allowed size of " + MAX_VALUE_SIZE + "! An attempt to save the variable will be made nonetheless.");
+			checkSize(name, value);
 			try {
 				if (type == null) {
 					assert value == null;
@@ -527,11 +569,86 @@ public class DatabaseStorage extends VariablesStorage {
 		return true;
 	}
 
+	/**
+	 * Sends all writes and all deletions of the batch to the database at once, or only marks the variables as dirty if {@link #writeBehindInterval write behind} is enabled.
+	 */
+	@Override
+	protected boolean save(final Collection<SerializedVariable> vars) {
+		if (writeBehindInterval > 0) {
+			synchronized (dirtyVariables) {
+				for (final SerializedVariable var : vars)
+					dirtyVariables.put(var.name, var);
+			}
+			return true;
+		}
+		return write(vars);
+	}
+
+	/**
+	 * Writes all dirty variables to the database.
+	 */
+	private void flushDirtyVariables() {
+		synchronized (db) { // prevents close() from closing the database before the variables are written
+			final List<SerializedVariable> vars;
+			synchronized (dirtyVariables) {
+				if (dirtyVariables.isEmpty())
+					return;
+				vars = new ArrayList<>(dirtyVariables.values());
+				dirtyVariables.clear();
+			}
+			write(vars);
+		}
+	}
+
+	/**
+	 * Sends all writes and all deletions to the database at once. Their order doesn't matter as there is at most one change per variable.
+	 */
+	private boolean write(final Collection<SerializedVariable> vars) {
+		synchronized (db) {
+			final PreparedStatement writeQuery = this.writeQuery, deleteQuery = this.deleteQuery;
+			assert writeQuery != null && deleteQuery != null;
+			try {
+				boolean writes = false, deletes = false;
+				for (final SerializedVariable var : vars) {
+					final Value d = var.value;
+					checkSize(var.name, d == null ? null : d.data);
+					if (d == null) {
+						deleteQuery.setString(1, var.name);
+						deleteQuery.addBatch();
+						deletes = true;
+					} else {
+						int i = 1;
+						writeQuery.setString(i++, var.name);
+						writeQuery.setString(i++, d.type);
+						writeQuery.setBytes(i++, d.data); // SQLite desn't support setBlob
+						writeQuery.setString(i++, guid);
+						writeQuery.addBatch();
+						writes = true;
+					}
+				}
+				if (deletes)
+					deleteQuery.executeBatch();
+				if (writes)
+					writeQuery.executeBatch();
+				writtenChanges.addAndGet(vars.size());
+			} catch (final SQLException e) {
+				try {
+					deleteQuery.clearBatch();
+					writeQuery.clearBatch();
+				} catch (final SQLException e2) {}
+				sqlException(e);
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@SuppressWarnings("null")
 	@Override
 	public void close() {
+		super.close(); // must not hold the lock on db, as the write thread needs it to save the remaining variables
+		flushDirtyVariables();
 		synchronized (db) {
-			super.close();
 			final Database db = this.db.get();
 			if (db != null) {
 				try {
@@ -620,6 +737,9 @@ public class DatabaseStorage extends VariablesStorage {
 			@Override
 			@Nullable
 			public SQLException call() throws Exception {
+				final VariablesLoader loader = new VariablesLoader(DatabaseStorage.this, (name, c) -> {
+					Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
+				});
 				try {
 					while (r.next()) {
 						int i = 1;
@@ -632,7 +752,7 @@ public class DatabaseStorage extends VariablesStorage {
 						final byte[] value = r.getBytes(i++); // Blob not supported by SQLite
 						lastRowID = r.getLong(i++);
 						if (value == null) {
-							Variables.variableLoaded(name, null, DatabaseStorage.this);
+							loader.load(name, null);
 						} else {
 							final ClassInfo<?> c = Classes.getClassInfoNoError(type);
 							@SuppressWarnings("unused")
@@ -641,20 +761,13 @@ public class DatabaseStorage extends VariablesStorage {
 								Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because the type '" + type + "' cannot be recognised or cannot be stored in variables");
 								continue;
 							}
-//					if (s.mustSyncDeserialization()) {
-//						syncDeserializing.add(new VariableInfo(name, value, c));
-//					} else {
-							final Object d = Classes.deserialize(c, value);
-							if (d == null) {
-								Skript.error("Cannot load the variable {" + name + "} from the database '" + databaseName + "', because it cannot be loaded as " + c.getName().withIndefiniteArticle());
-								continue;
-							}
-							Variables.variableLoaded(name, d, DatabaseStorage.this);
-//					}
+							loader.load(name, c, value);
 						}
 					}
 				} catch (final SQLException e) {
 					return e;
+				} finally {
+					loader.finish();
 				}
 				return null;
 			}
@@ -30,6 +30,8 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -39,6 +41,7 @@ import java.util.regex.Pattern;
 import org.eclipse.jdt.annotation.Nullable;
 
 import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
 import ch.njol.skript.config.SectionNode;
 import ch.njol.skript.lang.Variable;
 import ch.njol.skript.log.SkriptLogger;
@@ -48,6 +51,7 @@ import ch.njol.skript.util.FileUtils;
 import ch.njol.skript.util.Task;
 import ch.njol.skript.util.Utils;
 import ch.njol.skript.util.Version;
+import ch.njol.skript.variables.SerializedVariable.Value;
 import ch.njol.util.NotifyingReference;
 
 /**
@@ -63,7 +67,7 @@ public class FlatFileStorage extends VariablesStorage {
 	public final static Charset UTF_8 = Charset.forName("UTF-8");
 	
 	/**
-	 * A Lock on this object must be acquired after connectionLock (if that lock is used) (and thus also after {@link Variables#getReadLock()}).
+	 * A Lock on this object must be acquired after connectionLock (if that lock is used) (and thus also after the locks of {@link Variables#getShards()}).
 	 */
 	private final NotifyingReference<PrintWriter> changesWriter = new NotifyingReference<>();
 	
@@ -100,6 +104,9 @@ public class FlatFileStorage extends VariablesStorage {
 		final Version v2_1 = new Version(2, 1);
 		boolean update2_1 = false;
 		
+		final List<String> failed = new ArrayList<>();
+		final VariablesLoader loader = new VariablesLoader(this, (name, type) -> failed.add(name));
+		
 		BufferedReader r = null;
 		try {
 			r = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
@@ -128,13 +135,19 @@ public class FlatFileStorage extends VariablesStorage {
 					continue;
 				}
 				if (split[1].equals("null")) {
-					Variables.variableLoaded("" + split[0], null, this);
+					loader.load("" + split[0], null);
+				} else if (!update2_1) {
+					final ClassInfo<?> type = Classes.getClassInfoNoError(split[1]);
+					if (type == null || type.getSerializer() == null) {
+						if (invalid.length() != 0)
+							invalid.append(", ");
+						invalid.append(split[0]);
+						unsuccessful++;
+						continue;
+					}
+					loader.load("" + split[0], type, decode("" + split[2]));
 				} else {
-					Object d;
-					if (update2_1)
-						d = Classes.deserialize("" + split[1], "" + split[2]);
-					else
-						d = Classes.deserialize("" + split[1], decode("" + split[2]));
+					Object d = Classes.deserialize("" + split[1], "" + split[2]);
 					if (d == null) {
 						if (invalid.length() != 0)
 							invalid.append(", ");
@@ -145,7 +158,7 @@ public class FlatFileStorage extends VariablesStorage {
 					if (d instanceof String && update2_0_beta3) {
 						d = Utils.replaceChatStyles((String) d);
 					}
-					Variables.variableLoaded("" + split[0], d, this);
+					loader.load("" + split[0], d);
 				}
 			}
 		} catch (final IOException e) {
@@ -157,6 +170,14 @@ public class FlatFileStorage extends VariablesStorage {
 					r.close();
 				} catch (final IOException e) {}
 			}
+			loader.finish();
+		}
+		
+		for (final String name : failed) {
+			if (invalid.length() != 0)
+				invalid.append(", ");
+			invalid.append(name);
+			unsuccessful++;
 		}
 		
 		final File file = this.file;
@@ -267,14 +288,7 @@ public class FlatFileStorage extends VariablesStorage {
 			synchronized (changesWriter) {
 				if (!loaded && type == null)
 					return true; // deleting variables is not really required for this kind of storage, as it will be completely rewritten every once in a while, and at least once when the server stops.
-				PrintWriter cw;
-				while ((cw = changesWriter.get()) == null) {
-					try {
-						changesWriter.wait();
-					} catch (final InterruptedException e) {
-						Thread.currentThread().interrupt();
-					}
-				}
+				final PrintWriter cw = getChangesWriter();
 				writeCSV(cw, name, type, value == null ? "" : encode(value));
 				cw.flush();
 				changes.incrementAndGet();
@@ -283,6 +297,47 @@ public class FlatFileStorage extends VariablesStorage {
 		return true;
 	}
 	
+	/**
+	 * Writes all changes of the batch before flushing the file once.
+	 */
+	@Override
+	protected boolean save(final Collection<SerializedVariable> vars) {
+		synchronized (connectionLock) {
+			synchronized (changesWriter) {
+				final PrintWriter cw = getChangesWriter();
+				for (final SerializedVariable var : vars) {
+					final Value d = var.value;
+					if (d == null) {
+						if (!loaded)
+							continue; // see above
+						writeCSV(cw, var.name, null, "");
+					} else {
+						writeCSV(cw, var.name, d.type, encode(d.data));
+					}
+					changes.incrementAndGet();
+					writtenChanges.incrementAndGet();
+				}
+				cw.flush();
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Must be called while synchronized on {@link #changesWriter}. Waits for the writer if it is currently being replaced.
+	 */
+	private PrintWriter getChangesWriter() {
+		PrintWriter cw;
+		while ((cw = changesWriter.get()) == null) {
+			try {
+				changesWriter.wait();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return cw;
+	}
+	
 	/**
 	 * Use with find()
 	 */
@@ -355,8 +410,8 @@ public class FlatFileStorage extends VariablesStorage {
 			if (bt != null)
 				bt.cancel();
 		}
+		Variables.lockAllShards(false);
 		try {
-			Variables.getReadLock().lock();
 			synchronized (connectionLock) {
 				try {
 					final File f = file;
@@ -385,7 +440,8 @@ public class FlatFileStorage extends VariablesStorage {
 						pw.println("#");
 						pw.println("# version: " + Skript.getVersion());
 						pw.println();
-						save(pw, "", Variables.getVariables());
+						for (final VariablesShard shard : Variables.getShards())
+							save(pw, "", shard.map.treeMap);
 						pw.println();
 						pw.flush();
 						pw.close();
@@ -403,15 +459,8 @@ public class FlatFileStorage extends VariablesStorage {
 				}
 			}
 		} finally {
-			Variables.getReadLock().unlock();
-			boolean gotLock = Variables.variablesLock.writeLock().tryLock();
-			if (gotLock) { // Only process queue now if it doesn't require us to wait
-				try {
-					Variables.processChangeQueue();
-				} finally {
-					Variables.variablesLock.writeLock().unlock();
-				}
-			}
+			Variables.unlockAllShards(false);
+			Variables.tryProcessChangeQueues(); // Only process queues now if it doesn't require us to wait
 		}
 	}
 	
@@ -0,0 +1,64 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The local variables of a trigger or function whose names are known while it is parsed, e.g. <tt>{_x}</tt>, each with the index of the slot its value
+ * is stored in. The local variables of the trigger store these in an array instead of their tree, so that the variables can be accessed without looking up
+ * their names, while accessing them by name (e.g. <tt>{_%"x"%}</tt>, or from another trigger) still works like for any other local variable.
+ * <p>
+ * Slots are only added while the trigger is parsed, afterwards this is only read.
+ */
+public final class LocalSlots {
+	
+	private final Map<String, Integer> slots = new HashMap<>();
+	
+	/**
+	 * @param name The name of a local variable without the local variable token, as used by {@link Variables}, i.e. in lower case if variables are
+	 *            case-insensitive. Must not be a list variable or a variable in a list.
+	 * @return The slot of the variable, which is added if the variable doesn't have one yet
+	 */
+	public int getSlot(final String name) {
+		Integer slot = slots.get(name);
+		if (slot == null)
+			slots.put(name, slot = slots.size());
+		return slot;
+	}
+	
+	/**
+	 * @return The slot of the variable, or -1 if it doesn't have one
+	 */
+	int indexOf(final String name) {
+		final Integer slot = slots.get(name);
+		return slot == null ? -1 : slot;
+	}
+	
+	int size() {
+		return slots.size();
+	}
+	
+	Map<String, Integer> getSlots() {
+		return slots;
+	}
+	
+}
@@ -19,13 +19,14 @@
  */
 package ch.njol.skript.variables;
 
-import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.Nullable;
 
+import ch.njol.skript.lang.parser.ParserInstance;
+
 /**
  * This is used to manage local variable type hints.
  * 
@@ -35,28 +36,23 @@ import org.eclipse.jdt.annotation.Nullable;
  * <li>ScriptLoader clears hints after each section has been parsed
  * <li>ScriptLoader enters and exists scopes as needed
  * </ul>
+ * The hints are stored in the current {@link ParserInstance}.
  */
 public class TypeHints {
 	
-	private static final Deque<Map<String, Class<?>>> typeHints = new ArrayDeque<>();
-	
-	static {
-		clear(); // Initialize type hints
-	}
-	
 	public static void add(String variable, Class<?> hint) {
 		if (hint.equals(Object.class)) // Ignore useless type hint
 			return;
 		
 		// Take top of stack, without removing it
-		Map<String, Class<?>> hints = typeHints.getFirst();
+		Map<String, Class<?>> hints = ParserInstance.get().getTypeHints().getFirst();
 		hints.put(variable, hint);
 	}
 	
 	@Nullable
 	public static Class<?> get(String variable) {
 		// Go through stack of hints for different scopes
-		for (Map<String, Class<?>> hints : typeHints) {
+		for (Map<String, Class<?>> hints : ParserInstance.get().getTypeHints()) {
 			Class<?> hint = hints.get(variable);
 			if (hint != null) // Found in this scope
 				return hint;
@@ -66,14 +62,15 @@ public class TypeHints {
 	}
 	
 	public static void enterScope() {
-		typeHints.push(new HashMap<>());
+		ParserInstance.get().getTypeHints().push(new HashMap<>());
 	}
 	
 	public static void exitScope() {
-		typeHints.pop();
+		ParserInstance.get().getTypeHints().pop();
 	}
 	
 	public static void clear() {
+		Deque<Map<String, Class<?>>> typeHints = ParserInstance.get().getTypeHints();
 		typeHints.clear();
 		typeHints.push(new HashMap<>());
 	}
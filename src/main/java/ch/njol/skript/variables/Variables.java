@@ -20,22 +20,16 @@
 package ch.njol.skript.variables;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Queue;
-import java.util.TreeMap;
 import java.util.WeakHashMap;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Pattern;
 
 import org.bukkit.Bukkit;
 import org.bukkit.configuration.serialization.ConfigurationSerializable;
@@ -52,11 +46,13 @@ import ch.njol.skript.classes.ConfigurationSerializer;
 import ch.njol.skript.config.Config;
 import ch.njol.skript.config.Node;
 import ch.njol.skript.config.SectionNode;
+import ch.njol.skript.lang.ExecutionFrame;
 import ch.njol.skript.lang.Variable;
 import ch.njol.skript.registrations.Classes;
 import ch.njol.skript.registrations.Converters;
 import ch.njol.skript.variables.DatabaseStorage.Type;
 import ch.njol.skript.variables.SerializedVariable.Value;
+import ch.njol.skript.variables.VariablesShard.VariableChange;
 import ch.njol.util.Closeable;
 import ch.njol.util.Kleenean;
 import ch.njol.util.NonNullPair;
@@ -111,8 +107,7 @@ public abstract class Variables {
 	static List<VariablesStorage> storages = new ArrayList<>();
 	
 	public static boolean load() {
-		assert variables.treeMap.isEmpty();
-		assert variables.hashMap.isEmpty();
+		assert numVariables() == 0;
 		assert storages.isEmpty();
 		
 		final Config c = SkriptConfig.getConfig();
@@ -168,6 +163,8 @@ public abstract class Variables {
 					final VariablesStorage s;
 					if (type.equalsIgnoreCase("csv") || type.equalsIgnoreCase("file") || type.equalsIgnoreCase("flatfile")) {
 						s = new FlatFileStorage(name);
+					} else if (type.equalsIgnoreCase("binary")) {
+						s = new BinaryFileStorage(name);
 					} else if (type.equalsIgnoreCase("mysql")) {
 						s = new DatabaseStorage(name, Type.MYSQL);
 					} else if (type.equalsIgnoreCase("sqlite")) {
@@ -229,41 +226,103 @@ public abstract class Variables {
 		return true;
 	}
 	
-	@SuppressWarnings("null")
-	private final static Pattern variableNameSplitPattern = Pattern.compile(Pattern.quote(Variable.SEPARATOR));
-	
-	@SuppressWarnings("null")
+	/**
+	 * Splits a variable name at its {@link Variable#SEPARATOR}s. This is done
+	 * on every access of a variable, so it doesn't use a regular expression.
+	 * 
+	 * @param name The variable's name.
+	 * @return The segments of the name, without trailing empty segments.
+	 */
 	public static String[] splitVariableName(final String name) {
-		return variableNameSplitPattern.split(name);
+		final int sepLength = Variable.SEPARATOR.length();
+		int count = 1;
+		for (int i = name.indexOf(Variable.SEPARATOR); i != -1; i = name.indexOf(Variable.SEPARATOR, i + sepLength))
+			count++;
+		final String[] split = new String[count];
+		int start = 0;
+		for (int i = 0; i < count - 1; i++) {
+			final int end = name.indexOf(Variable.SEPARATOR, start);
+			split[i] = name.substring(start, end);
+			start = end + sepLength;
+		}
+		split[count - 1] = name.substring(start);
+		
+		// Remove trailing empty segments, like String.split() does
+		int length = count;
+		while (length > 1 && split[length - 1].isEmpty())
+			length--;
+		return length == count ? split : Arrays.copyOf(split, length);
 	}
 	
-	final static ReadWriteLock variablesLock = new ReentrantReadWriteLock(true);
 	/**
-	 * must be locked with {@link #variablesLock}.
+	 * Amount of shards the global variables are split into. Must be a power of two.
 	 */
-	final static VariablesMap variables = new VariablesMap();
-
+	private final static int SHARD_COUNT = 16;
+	
+	/**
+	 * The global variables. Each shard must be locked with its own lock.
+	 */
+	private final static VariablesShard[] shards = new VariablesShard[SHARD_COUNT];
+	static {
+		for (int i = 0; i < SHARD_COUNT; i++)
+			shards[i] = new VariablesShard();
+	}
+	
 	/**
-	 * Not to be accessed outside of Bukkit's main thread!
+	 * Gets the shard the given global variable belongs to. This only depends
+	 * on the part of the name before the first {@link Variable#SEPARATOR}.
+	 * 
+	 * @param name The variable's name, already normalized.
 	 */
-	private final static Map<Event, VariablesMap> localVariables = new HashMap<>();
+	static VariablesShard getShard(final String name) {
+		int h = 0;
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			if (c == ':' && name.startsWith(Variable.SEPARATOR, i))
+				break;
+			h = 31 * h + c;
+		}
+		h ^= h >>> 16;
+		return shards[h & (SHARD_COUNT - 1)];
+	}
 	
 	/**
-	 * Remember to lock with {@link #getReadLock()} and to not make any changes!
+	 * Use {@link #lockAllShards(boolean)} if all of them need to be locked at once.
 	 */
-	static TreeMap<String, Object> getVariables() {
-		return variables.treeMap;
+	static VariablesShard[] getShards() {
+		return shards;
 	}
 	
+	/**
+	 * Locks all shards of the global variables, always in the same order.
+	 * Must be followed by {@link #unlockAllShards(boolean)}.
+	 * 
+	 * @param write Whether to acquire the write locks instead of the read locks.
+	 */
+	static void lockAllShards(final boolean write) {
+		for (final VariablesShard shard : shards)
+			(write ? shard.lock.writeLock() : shard.lock.readLock()).lock();
+	}
+	
+	static void unlockAllShards(final boolean write) {
+		for (int i = shards.length - 1; i >= 0; i--)
+			(write ? shards[i].lock.writeLock() : shards[i].lock.readLock()).unlock();
+	}
+
 	/**
 	 * Removes local variables associated with given event and returns them,
-	 * if they exist.
+	 * if they exist. Local variables are stored in the {@link ExecutionFrame} of the event.
 	 * @param event Event.
 	 * @return Local variables or null.
 	 */
 	@Nullable
 	public static VariablesMap removeLocals(Event event) {
-		return localVariables.remove(event);
+		final ExecutionFrame frame = ExecutionFrame.getIfExists(event);
+		if (frame == null)
+			return null;
+		final VariablesMap map = (VariablesMap) frame.getLocals();
+		frame.setLocals(null);
+		return map;
 	}
 	
 	/**
@@ -273,20 +332,7 @@ public abstract class Variables {
 	 * @param map New local variables.
 	 */
 	public static void setLocalVariables(Event event, Object map) {
-		localVariables.put(event, (VariablesMap) map);
-	}
-	
-	/**
-	 * Remember to lock with {@link #getReadLock()}!
-	 */
-	@SuppressWarnings("null")
-	static Map<String, Object> getVariablesHashMap() {
-		return Collections.unmodifiableMap(variables.hashMap);
-	}
-	
-	@SuppressWarnings("null")
-	static Lock getReadLock() {
-		return variablesLock.readLock();
+		ExecutionFrame.get(event).setLocals(map);
 	}
 	
 	/**
@@ -299,31 +345,35 @@ public abstract class Variables {
 	 */
 	@Nullable
 	public static Object getVariable(final String name, final @Nullable Event e, final boolean local) {
-		String n = name;
-        if (caseInsensitiveVariables) {
-            n = name.toLowerCase(Locale.ENGLISH);
-        }
-        assert n != null;
+		return getNormalizedVariable(normalizeName(name), e, local);
+	}
+	
+	/**
+	 * Converts a variable name to the form variables are stored by, i.e. to lower case if variables are case-insensitive. The result can be used with
+	 * {@link #getNormalizedVariable(String, Event, boolean)} and {@link #setNormalizedVariable(String, Object, Event, boolean)} for as long as Skript is
+	 * running, e.g. for names that are known when a script is parsed.
+	 */
+	public static String normalizeName(final String name) {
+		if (!caseInsensitiveVariables)
+			return name;
+		final String n = name.toLowerCase(Locale.ENGLISH);
+		assert n != null;
+		return n;
+	}
+	
+	/**
+	 * Like {@link #getVariable(String, Event, boolean)}, but the name must already be {@link #normalizeName(String) normalised}.
+	 */
+	@Nullable
+	public static Object getNormalizedVariable(final String name, final @Nullable Event e, final boolean local) {
 	    if (local) {
-			final VariablesMap map = localVariables.get(e);
+			final ExecutionFrame frame = e == null ? null : ExecutionFrame.getIfExists(e);
+			final VariablesMap map = frame == null ? null : (VariablesMap) frame.getLocals();
 			if (map == null)
 				return null;
-			return map.getVariable(n);
+			return map.getVariable(name);
 		} else {
-			// Prevent race conditions from returning variables with incorrect values
-			if (!changeQueue.isEmpty()) {
-				for (VariableChange change : changeQueue) {
-					if (change.name.equals(n))
-						return change.value;
-				}
-			}
-				
-			try {
-				variablesLock.readLock().lock();
-				return variables.getVariable(n);
-			} finally {
-				variablesLock.readLock().unlock();
-			}
+			return getShard(name).getVariable(name);
 		}
 	}
 	
@@ -334,88 +384,120 @@ public abstract class Variables {
 	 * @param value The variable's value. Use <tt>null</tt> to delete the variable.
 	 */
 	public static void setVariable(final String name, @Nullable Object value, final @Nullable Event e, final boolean local) {
-        String n = name;
-        if (caseInsensitiveVariables) {
-            n = name.toLowerCase(Locale.ENGLISH);
-        }
-        assert n != null;
+		setNormalizedVariable(normalizeName(name), value, e, local);
+	}
+	
+	/**
+	 * Like {@link #setVariable(String, Object, Event, boolean)}, but the name must already be {@link #normalizeName(String) normalised}.
+	 */
+	public static void setNormalizedVariable(final String name, @Nullable Object value, final @Nullable Event e, final boolean local) {
 	    if (value != null) {
-			assert !n.endsWith("::*");
-			final ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
-			final Class<?> sas = ci.getSerializeAs();
-			if (sas != null) {
-				value = Converters.convert(value, sas);
-				assert value != null : ci + ", " + sas;
-			}
+			assert !name.endsWith("::*");
+			value = serializeAs(value);
 		}
 		if (local) {
-			assert e != null : n;
-			VariablesMap map = localVariables.get(e);
+			assert e != null : name;
+			final ExecutionFrame frame = ExecutionFrame.get(e);
+			VariablesMap map = (VariablesMap) frame.getLocals();
 			if (map == null)
-				localVariables.put(e, map = new VariablesMap());
-			map.setVariable(n, value);
+				frame.setLocals(map = new VariablesMap());
+			map.setVariable(name, value);
 		} else {
-			setVariable(n, value);
-		}
-	}
-	
-	static void setVariable(final String name, @Nullable final Object value) {
-		boolean gotLock = variablesLock.writeLock().tryLock();
-		if (gotLock) {
-			try {
-				variables.setVariable(name, value);
-				saveVariableChange(name, value);
-				processChangeQueue(); // Process all previously queued writes
-			} finally {
-				variablesLock.writeLock().unlock();
-			}
-		} else { // Can't block here, queue the change
-			queueVariableChange(name, value);
+			setVariable(name, value);
 		}
 	}
 	
 	/**
-	 * Changes to variables that have not yet been written.
+	 * Converts a value to the type it is stored as, if its class specifies one.
 	 */
-	final static Queue<VariableChange> changeQueue = new ConcurrentLinkedQueue<>();
+	private static Object serializeAs(final Object value) {
+		final ClassInfo<?> ci = Classes.getSuperClassInfo(value.getClass());
+		final Class<?> sas = ci.getSerializeAs();
+		if (sas == null)
+			return value;
+		final Object converted = Converters.convert(value, sas);
+		assert converted != null : ci + ", " + sas;
+		return converted;
+	}
 	
 	/**
-	 * A variable change name-value pair.
+	 * Gets a local variable by its slot, which is the same as {@link #getVariable(String, Event, boolean)}, but doesn't have to find the variable by its name
+	 * if the local variables of the event belong to the trigger the slots are from.
+	 * 
+	 * @param name The name of the variable, which must have the given slot
 	 */
-	private static class VariableChange {
-		
-		public final String name;
-		@Nullable
-		public final Object value;
-		
-		public VariableChange(String name, @Nullable Object value) {
-			this.name = name;
-			this.value = value;
-		}
+	@Nullable
+	public static Object getLocalVariable(final LocalSlots slots, final int slot, final String name, final Event e) {
+		final ExecutionFrame frame = ExecutionFrame.getIfExists(e);
+		final VariablesMap map = frame == null ? null : (VariablesMap) frame.getLocals();
+		if (map == null)
+			return null;
+		if (map.useSlots(slots))
+			return map.getSlot(slot);
+		return map.getVariable(name);
 	}
 	
 	/**
-	 * Queues a variable change. Only to be called when direct write is not
-	 * possible, but thread cannot be allowed to block.
-	 * @param name Variable name.
-	 * @param value New value.
+	 * Sets a local variable by its slot, see {@link #getLocalVariable(LocalSlots, int, String, Event)}.
 	 */
-	private static void queueVariableChange(String name, @Nullable Object value) {
-		changeQueue.add(new VariableChange(name, value));
+	public static void setLocalVariable(final LocalSlots slots, final int slot, final String name, final @Nullable Object value, final Event e) {
+		final Object v = value == null ? null : serializeAs(value);
+		final ExecutionFrame frame = ExecutionFrame.get(e);
+		VariablesMap map = (VariablesMap) frame.getLocals();
+		if (map == null)
+			frame.setLocals(map = new VariablesMap());
+		if (map.useSlots(slots))
+			map.setSlot(slot, v);
+		else
+			map.setVariable(name, v);
+	}
+	
+	static void setVariable(final String name, @Nullable final Object value) {
+		final VariablesShard shard = getShard(name);
+		boolean gotLock = shard.lock.writeLock().tryLock();
+		if (gotLock) {
+			try {
+				processChangeQueue(shard); // Apply all previously queued writes first, so that they can't overwrite this one
+				shard.map.setVariable(name, value);
+				saveVariableChange(name, value);
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
+		} else { // Can't block here, queue the change
+			shard.queueChange(name, value);
+		}
 	}
 	
 	/**
-	 * Processes all entries in variable change queue. Note that caller MUST
-	 * acquire write lock before calling this, then release it.
+	 * Processes all entries in variable change queue of given shard. Note that
+	 * caller MUST acquire write lock of the shard before calling this, then
+	 * release it.
 	 */
-	static void processChangeQueue() {
+	static void processChangeQueue(VariablesShard shard) {
 		while (true) { // Run as long as we still have changes
-			VariableChange change = changeQueue.poll();
+			VariableChange change = shard.changeQueue.poll();
 			if (change == null)
 				break;
 			
-			variables.setVariable(change.name, change.value);
+			shard.map.setVariable(change.name, change.value);
 			saveVariableChange(change.name, change.value);
+			shard.changeApplied(change);
+		}
+	}
+	
+	/**
+	 * Processes queued changes of all shards whose write lock can be acquired
+	 * without waiting.
+	 */
+	static void tryProcessChangeQueues() {
+		for (final VariablesShard shard : shards) {
+			if (shard.changeQueue.isEmpty() || !shard.lock.writeLock().tryLock())
+				continue;
+			try {
+				processChangeQueue(shard);
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
 		}
 	}
 	
@@ -463,11 +545,12 @@ public abstract class Variables {
 			}
 		}
 		
-		variablesLock.writeLock().lock();
+		final VariablesShard shard = getShard(name);
+		shard.lock.writeLock().lock();
 		try {
-			variables.setVariable(name, value);
+			shard.map.setVariable(name, value);
 		} finally {
-			variablesLock.writeLock().unlock();
+			shard.lock.writeLock().unlock();
 		}
 		
 		for (final VariablesStorage s : storages) {
@@ -499,7 +582,7 @@ public abstract class Variables {
 			final Map<String, NonNullPair<Object, VariablesStorage>> tvs = tempVars.get();
 			tempVars.set(null);
 			assert tvs != null;
-			variablesLock.writeLock().lock();
+			lockAllShards(true);
 			try {
 				int n = 0;
 				for (final Entry<String, NonNullPair<Object, VariablesStorage>> tv : tvs.entrySet()) {
@@ -514,7 +597,7 @@ public abstract class Variables {
 				
 				return n;
 			} finally {
-				variablesLock.writeLock().unlock();
+				unlockAllShards(true);
 			}
 		}
 	}
@@ -532,10 +615,44 @@ public abstract class Variables {
 	}
 
 	private static void saveVariableChange(final String name, final @Nullable Object value) {
-		saveQueue.add(serialize(name, value));
+		if (value == null || Classes.mustSyncSerialization(value))
+			saveQueue.add(new UnsavedChange(name, null, serialize(value)));
+		else
+			saveQueue.add(new UnsavedChange(name, value, null));
 	}
 	
-	final static BlockingQueue<SerializedVariable> saveQueue = new LinkedBlockingQueue<>();
+	/**
+	 * A variable change that has not yet been passed to its storage.
+	 */
+	final static class UnsavedChange {
+		
+		final String name;
+		
+		/**
+		 * The new value if it will be serialised on the {@link #saveThread}.
+		 */
+		@Nullable
+		final Object value;
+		
+		/**
+		 * The new value if it was serialised on the main thread. Both values are null if the variable was deleted.
+		 */
+		@Nullable
+		final SerializedVariable.Value serialized;
+		
+		UnsavedChange(final String name, final @Nullable Object value, final @Nullable SerializedVariable.Value serialized) {
+			this.name = name;
+			this.value = value;
+			this.serialized = serialized;
+		}
+		
+		SerializedVariable serialize() {
+			final Object value = this.value;
+			return new SerializedVariable(name, value != null ? Classes.serialize(value) : serialized);
+		}
+	}
+	
+	final static BlockingQueue<UnsavedChange> saveQueue = new LinkedBlockingQueue<>();
 	
 	static volatile boolean closed = false;
 	
@@ -545,7 +662,7 @@ public abstract class Variables {
 			while (!closed) {
 				try {
 					// Save one variable change
-					SerializedVariable v = saveQueue.take();
+					SerializedVariable v = saveQueue.take().serialize();
 					for (VariablesStorage s : storages) {
 						if (s.accept(v.name)) {
 							s.save(v);
@@ -558,11 +675,13 @@ public abstract class Variables {
 	}, "Skript variable save thread");
 	
 	public static void close() {
-		try { // Ensure that all changes are to save soon
-			variablesLock.writeLock().lock();
-			processChangeQueue();
-		} finally {
-			variablesLock.writeLock().unlock();
+		for (final VariablesShard shard : shards) { // Ensure that all changes are to save soon
+			shard.lock.writeLock().lock();
+			try {
+				processChangeQueue(shard);
+			} finally {
+				shard.lock.writeLock().unlock();
+			}
 		}
 		
 		while (saveQueue.size() > 0) {
@@ -574,13 +693,24 @@ public abstract class Variables {
 		saveThread.interrupt();
 	}
 	
+	/**
+	 * @return All loaded variable storages, in the order they are defined in the config
+	 */
+	public static List<VariablesStorage> getStorages() {
+		return Collections.unmodifiableList(storages);
+	}
+	
 	public static int numVariables() {
-		try {
-			variablesLock.readLock().lock();
-			return variables.hashMap.size();
-		} finally {
-			variablesLock.readLock().unlock();
+		int n = 0;
+		for (final VariablesShard shard : shards) {
+			shard.lock.readLock().lock();
+			try {
+				n += shard.map.size();
+			} finally {
+				shard.lock.readLock().unlock();
+			}
 		}
+		return n;
 	}
 	
 }
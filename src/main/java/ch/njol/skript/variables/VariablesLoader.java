@@ -0,0 +1,213 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+import org.bukkit.Bukkit;
+import org.eclipse.jdt.annotation.Nullable;
+
+import ch.njol.skript.Skript;
+import ch.njol.skript.classes.ClassInfo;
+import ch.njol.skript.classes.Serializer;
+import ch.njol.skript.registrations.Classes;
+
+/**
+ * Deserializes variables loaded by a {@link VariablesStorage} on a pool of
+ * worker threads. Variables whose serializer
+ * {@link Serializer#mustSyncDeserialization() must deserialize synchronously}
+ * are deserialized on the main thread instead.
+ * <p>
+ * All variables are passed to {@link Variables#variableLoaded(String, Object, VariablesStorage)}
+ * on the main thread, in the order they were given to this loader, so a
+ * variable stored multiple times still ends up with its last value.
+ */
+final class VariablesLoader {
+	
+	/**
+	 * How many variables may wait for deserialization before the main thread
+	 * waits for the oldest one. Limits the memory used while loading.
+	 */
+	private final static int MAX_PENDING = 16384;
+	
+	private final VariablesStorage storage;
+	
+	/**
+	 * Called on the main thread with the name and type of each variable that
+	 * could not be deserialized.
+	 */
+	private final BiConsumer<String, ClassInfo<?>> onError;
+	
+	/**
+	 * Only created once needed, as e.g. monitoring a database for changes
+	 * usually loads few variables at a time.
+	 */
+	@Nullable
+	private ExecutorService executor;
+	
+	private final Queue<PendingVariable> pending = new ArrayDeque<>();
+	
+	private static final class PendingVariable {
+		
+		final String name;
+		
+		/**
+		 * Null if the value is already known.
+		 */
+		@Nullable
+		final ClassInfo<?> type;
+		@Nullable
+		final byte[] data;
+		
+		/**
+		 * Null if the variable must be deserialized on the main thread.
+		 */
+		@Nullable
+		final Future<Object> future;
+		
+		/**
+		 * The value if it was already known when the variable was queued.
+		 */
+		@Nullable
+		final Object value;
+		
+		PendingVariable(final String name, final @Nullable ClassInfo<?> type, final @Nullable byte[] data, final @Nullable Future<Object> future, final @Nullable Object value) {
+			this.name = name;
+			this.type = type;
+			this.data = data;
+			this.future = future;
+			this.value = value;
+		}
+	}
+	
+	VariablesLoader(final VariablesStorage storage, final BiConsumer<String, ClassInfo<?>> onError) {
+		this.storage = storage;
+		this.onError = onError;
+	}
+	
+	private ExecutorService getExecutor() {
+		ExecutorService executor = this.executor;
+		if (executor == null) {
+			// The main thread mostly waits for the workers while loading, so it doesn't need a processor of its own
+			final int threads = Runtime.getRuntime().availableProcessors();
+			this.executor = executor = Executors.newFixedThreadPool(threads, r -> {
+				final Thread t = Skript.newThread(r, "Skript variable loader thread for database '" + storage.databaseName + "'");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+	
+	/**
+	 * Queues a variable to be deserialized. Must be called on the main thread.
+	 * 
+	 * @param name The variable's name.
+	 * @param type The variable's type, which must have a serializer.
+	 * @param data The serialized value.
+	 */
+	void load(final String name, final ClassInfo<?> type, final byte[] data) {
+		assert Bukkit.isPrimaryThread();
+		final Serializer<?> s = type.getSerializer();
+		assert s != null : type;
+		final Future<Object> future = s.mustSyncDeserialization() ? null : getExecutor().submit(() -> Classes.deserialize(type, data));
+		pending.add(new PendingVariable(name, type, data, future, null));
+		drain(false);
+	}
+	
+	/**
+	 * Queues a variable whose value is already known, e.g. a deleted one.
+	 * Must be called on the main thread.
+	 */
+	void load(final String name, final @Nullable Object value) {
+		assert Bukkit.isPrimaryThread();
+		pending.add(new PendingVariable(name, null, null, null, value));
+		drain(false);
+	}
+	
+	/**
+	 * Waits for all queued variables to be deserialized and passes them on,
+	 * then stops the worker threads. Must be called on the main thread.
+	 */
+	void finish() {
+		assert Bukkit.isPrimaryThread();
+		try {
+			drain(true);
+		} finally {
+			final ExecutorService executor = this.executor;
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Passes on variables from the head of the queue that are ready.
+	 * 
+	 * @param all Whether to wait until all variables are passed on, instead of
+	 *            only waiting if too many are queued.
+	 */
+	private void drain(final boolean all) {
+		PendingVariable v;
+		while ((v = pending.peek()) != null) {
+			final Future<Object> future = v.future;
+			if (!all && future != null && !future.isDone() && pending.size() <= MAX_PENDING)
+				return;
+			pending.remove();
+			complete(v);
+		}
+	}
+	
+	private void complete(final PendingVariable v) {
+		final ClassInfo<?> type = v.type;
+		final byte[] data = v.data;
+		if (type == null || data == null) {
+			Variables.variableLoaded(v.name, v.value, storage);
+			return;
+		}
+		
+		Object d;
+		final Future<Object> future = v.future;
+		if (future == null) {
+			d = Classes.deserialize(type, data);
+		} else {
+			try {
+				d = future.get();
+			} catch (final ExecutionException e) {
+				Skript.exception(e.getCause(), "Error while deserializing the variable {" + v.name + "}");
+				d = null;
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				d = null;
+			}
+		}
+		
+		if (d == null)
+			onError.accept(v.name, type);
+		else
+			Variables.variableLoaded(v.name, d, storage);
+	}
+	
+}
@@ -21,10 +21,10 @@ package ch.njol.skript.variables;
 
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.function.BiConsumer;
 
 import org.eclipse.jdt.annotation.Nullable;
 
@@ -32,8 +32,27 @@ import ch.njol.skript.lang.Variable;
 import ch.njol.skript.util.Utils;
 import ch.njol.util.StringUtils;
 
+/**
+ * Stores variables in a tree of maps, with one level per segment of their
+ * names (i.e. the parts between {@link Variable#SEPARATOR}s). A list is a map
+ * of its elements, and the value of a variable that is also a list is stored
+ * with the <tt>null</tt> key of that list's map.
+ * <p>
+ * Variables are only stored in this tree and not additionally by their full
+ * names, which would double the memory used for large amounts of variables.
+ */
 final class VariablesMap {
 	
+	/**
+	 * Orders names alphabetically, except that runs of digits are compared by
+	 * their numerical values. This is called for every step of a lookup in the
+	 * list maps, so it must not allocate anything.
+	 * <p>
+	 * Only equal names are equal: if names only differ in numerically equal
+	 * runs of digits, e.g. <tt>1</tt> and <tt>01</tt>, the first such run
+	 * decides, where shorter runs come first and runs of the same length are
+	 * compared by their digits.
+	 */
 	final static Comparator<String> variableNameComparator = new Comparator<String>() {
 		@Override
 		public int compare(final @Nullable String s1, final @Nullable String s2) {
@@ -42,15 +61,18 @@ final class VariablesMap {
 			if (s2 == null)
 				return 1;
 			int i = 0, j = 0;
+			int tie = 0;
 			while (i < s1.length() && j < s2.length()) {
 				final char c1 = s1.charAt(i), c2 = s2.charAt(j);
 				if ('0' <= c1 && c1 <= '9' && '0' <= c2 && c2 <= '9') { // TODO negative numbers? what about {blah-%number%}? // '-' < '0'
 					final int i2 = StringUtils.findLastDigit(s1, i), j2 = StringUtils.findLastDigit(s2, j);
-					final long n1 = Utils.parseLong("" + s1.substring(i, i2)), n2 = Utils.parseLong("" + s2.substring(j, j2));
+					final long n1 = parseDigits(s1, i, i2), n2 = parseDigits(s2, j, j2);
 					if (n1 > n2)
 						return 1;
 					if (n1 < n2)
 						return -1;
+					if (tie == 0)
+						tie = compareDigits(s1, i, i2, s2, j, j2);
 					i = i2;
 					j = j2;
 					continue;
@@ -67,13 +89,67 @@ final class VariablesMap {
 				return -1;
 			if (j < s2.length())
 				return 1;
-			return 0;
+			return tie;
 		}
 	};
 	
-	final HashMap<String, Object> hashMap = new HashMap<>();
+	/**
+	 * Compares two runs of digits with equal numerical values, see
+	 * {@link #variableNameComparator}.
+	 */
+	private static int compareDigits(final String s1, final int start1, final int end1, final String s2, final int start2, final int end2) {
+		final int length1 = end1 - start1, length2 = end2 - start2;
+		if (length1 != length2)
+			return length1 < length2 ? -1 : 1;
+		for (int k = 0; k < length1; k++) {
+			final char c1 = s1.charAt(start1 + k), c2 = s2.charAt(start2 + k);
+			if (c1 != c2)
+				return c1 < c2 ? -1 : 1;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Parses a run of digits like {@link Utils#parseLong(String)} does, but
+	 * without creating a substring for it.
+	 * 
+	 * @param s The string containing the digits.
+	 * @param start Index of the first digit.
+	 * @param end Index after the last digit.
+	 * @return The parsed number, or {@link Long#MAX_VALUE} if it is too large.
+	 */
+	static long parseDigits(final String s, final int start, final int end) {
+		long n = 0;
+		for (int i = start; i < end; i++) {
+			final int digit = s.charAt(i) - '0';
+			assert 0 <= digit && digit <= 9 : s;
+			if (n > (Long.MAX_VALUE - digit) / 10)
+				return Long.MAX_VALUE;
+			n = n * 10 + digit;
+		}
+		return n;
+	}
+	
 	final TreeMap<String, Object> treeMap = new TreeMap<>();
 	
+	/**
+	 * The variables which are stored in {@link #slotValues} instead of the
+	 * tree, or null if this map doesn't use slots. Only used for local
+	 * variables, see {@link #useSlots(LocalSlots)}.
+	 */
+	@Nullable
+	private LocalSlots slots = null;
+	private Object[] slotValues = new Object[0];
+	
+	/**
+	 * Amount of variables in this map, not counting the lists themselves.
+	 */
+	private int size = 0;
+	
+	int size() {
+		return size;
+	}
+	
 	/**
 	 * Returns the internal value of the requested variable.
 	 * <p>
@@ -85,30 +161,30 @@ final class VariablesMap {
 	@SuppressWarnings("unchecked")
 	@Nullable
 	final Object getVariable(final String name) {
-		if (!name.endsWith("*")) {
-			return hashMap.get(name);
-		} else {
-			final String[] split = Variables.splitVariableName(name);
-			Map<String, Object> current = treeMap;
-			for (int i = 0; i < split.length; i++) {
-				final String n = split[i];
-				if (n.equals("*")) {
-					assert i == split.length - 1;
-					return current;
-				}
-				final Object o = current.get(n);
-				if (o == null)
-					return null;
-				if (o instanceof Map) {
-					current = (Map<String, Object>) o;
-					assert i != split.length - 1;
-					continue;
-				} else {
-					return null;
-				}
+		final int slot = slotOf(name);
+		if (slot != -1)
+			return slotValues[slot];
+		final String[] split = Variables.splitVariableName(name);
+		Map<String, Object> current = treeMap;
+		for (int i = 0; i < split.length; i++) {
+			final String n = split[i];
+			if (n.equals("*")) {
+				assert i == split.length - 1;
+				return current;
+			}
+			final Object o = current.get(n);
+			if (o == null)
+				return null;
+			if (i == split.length - 1) // The variable itself, which may also be a list
+				return o instanceof Map ? ((Map<String, Object>) o).get(null) : o;
+			if (o instanceof Map) {
+				current = (Map<String, Object>) o;
+				continue;
+			} else {
+				return null;
 			}
-			return null;
 		}
+		return null;
 	}
 	
 	/**
@@ -119,11 +195,10 @@ final class VariablesMap {
 	 */
 	@SuppressWarnings("unchecked")
 	final void setVariable(final String name, final @Nullable Object value) {
-		if (!name.endsWith("*")) {
-			if (value == null)
-				hashMap.remove(name);
-			else
-				hashMap.put(name, value);
+		final int slot = slotOf(name);
+		if (slot != -1) {
+			setSlot(slot, value);
+			return;
 		}
 		final String[] split = Variables.splitVariableName(name);
 		TreeMap<String, Object> parent = treeMap;
@@ -132,8 +207,10 @@ final class VariablesMap {
 			Object current = parent.get(n);
 			if (current == null) {
 				if (i == split.length - 1) {
-					if (value != null)
+					if (value != null) {
 						parent.put(n, value);
+						size++;
+					}
 					break;
 				} else if (value != null) {
 					parent.put(n, current = new TreeMap<>(variableNameComparator));
@@ -144,15 +221,20 @@ final class VariablesMap {
 				}
 			} else if (current instanceof TreeMap) {
 				if (i == split.length - 1) {
+					final Object old;
 					if (value == null)
-						((TreeMap<String, Object>) current).remove(null);
+						old = ((TreeMap<String, Object>) current).remove(null);
 					else
-						((TreeMap<String, Object>) current).put(null, value);
+						old = ((TreeMap<String, Object>) current).put(null, value);
+					if (old == null && value != null)
+						size++;
+					else if (old != null && value == null)
+						size--;
 					break;
 				} else if (i == split.length - 2 && split[i + 1].equals("*")) {
 					assert value == null;
-					deleteFromHashMap(StringUtils.join(split, Variable.SEPARATOR, 0, i + 1), (TreeMap<String, Object>) current);
 					final Object v = ((TreeMap<String, Object>) current).get(null);
+					size -= count((TreeMap<String, Object>) current) - (v == null ? 0 : 1);
 					if (v == null)
 						parent.remove(n);
 					else
@@ -164,10 +246,12 @@ final class VariablesMap {
 				}
 			} else {
 				if (i == split.length - 1) {
-					if (value == null)
+					if (value == null) {
 						parent.remove(n);
-					else
+						size--;
+					} else {
 						parent.put(n, value);
+					}
 					break;
 				} else if (value != null) {
 					final TreeMap<String, Object> c = new TreeMap<>(variableNameComparator);
@@ -182,15 +266,107 @@ final class VariablesMap {
 		}
 	}
 	
+	/**
+	 * Makes this map store the variables with the given slots in an array
+	 * instead of the tree. A map can only use the slots of one trigger, which
+	 * are set by the first trigger that accesses a variable by its slot.
+	 * Values that are already in the tree are moved to their slots.
+	 * 
+	 * @return Whether this map uses the given slots, i.e. whether
+	 *         {@link #getSlot(int)} and {@link #setSlot(int, Object)} can be
+	 *         used with them
+	 */
 	@SuppressWarnings("unchecked")
-	void deleteFromHashMap(final String parent, final TreeMap<String, Object> current) {
-		for (final Entry<String, Object> e : current.entrySet()) {
-			if (e.getKey() == null)
+	final boolean useSlots(final LocalSlots slots) {
+		final LocalSlots current = this.slots;
+		if (current != null && current != slots)
+			return false;
+		this.slots = slots;
+		final int oldLength = slotValues.length;
+		if (oldLength == slots.size())
+			return true;
+		slotValues = Arrays.copyOf(slotValues, slots.size());
+		for (final Entry<String, Integer> e : slots.getSlots().entrySet()) {
+			if (e.getValue() < oldLength)
 				continue;
-			hashMap.remove(parent + Variable.SEPARATOR + e.getKey());
+			final Object o = treeMap.get(e.getKey());
+			if (o instanceof TreeMap) {
+				final TreeMap<String, Object> list = (TreeMap<String, Object>) o;
+				slotValues[e.getValue()] = list.remove(null);
+				if (list.isEmpty())
+					treeMap.remove(e.getKey());
+			} else if (o != null) {
+				slotValues[e.getValue()] = o;
+				treeMap.remove(e.getKey());
+			}
+		}
+		return true;
+	}
+	
+	@Nullable
+	final Object getSlot(final int slot) {
+		return slotValues[slot];
+	}
+	
+	final void setSlot(final int slot, final @Nullable Object value) {
+		final Object old = slotValues[slot];
+		slotValues[slot] = value;
+		if (old == null && value != null)
+			size++;
+		else if (old != null && value == null)
+			size--;
+	}
+	
+	/**
+	 * @return The slot the variable with the given name is stored in, or -1
+	 *         if it is stored in the tree
+	 */
+	private int slotOf(final String name) {
+		final LocalSlots slots = this.slots;
+		if (slots == null || name.contains(Variable.SEPARATOR))
+			return -1;
+		final int slot = slots.indexOf(name);
+		return slot < slotValues.length ? slot : -1; // slots added after this map started using them are still in the tree
+	}
+	
+	/**
+	 * Counts the variables in the given (sub)tree, including the value of the
+	 * list itself if it has one.
+	 */
+	@SuppressWarnings("unchecked")
+	private static int count(final TreeMap<String, Object> map) {
+		int n = 0;
+		for (final Object val : map.values()) {
+			if (val instanceof TreeMap)
+				n += count((TreeMap<String, Object>) val);
+			else
+				n++;
+		}
+		return n;
+	}
+	
+	/**
+	 * Passes all variables in this map to the given action, in the order of
+	 * {@link #variableNameComparator}.
+	 * 
+	 * @param action Gets the full name and the value of each variable.
+	 */
+	void forEach(final BiConsumer<String, Object> action) {
+		forEach("", treeMap, action);
+	}
+	
+	/**
+	 * @param parent The parent's name with {@link Variable#SEPARATOR} at the end
+	 */
+	@SuppressWarnings("unchecked")
+	private static void forEach(final String parent, final TreeMap<String, Object> map, final BiConsumer<String, Object> action) {
+		for (final Entry<String, Object> e : map.entrySet()) {
 			final Object val = e.getValue();
 			if (val instanceof TreeMap) {
-				deleteFromHashMap(parent + Variable.SEPARATOR + e.getKey(), (TreeMap<String, Object>) val);
+				forEach(parent + e.getKey() + Variable.SEPARATOR, (TreeMap<String, Object>) val, action);
+			} else {
+				final String key = e.getKey();
+				action.accept(key == null ? parent.substring(0, parent.length() - Variable.SEPARATOR.length()) : parent + key, val);
 			}
 		}
 	}
@@ -0,0 +1,145 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A part of the global variables. Variables are distributed over the shards
+ * by the first segment of their names, so a list variable and all of its
+ * elements always end up in the same shard.
+ * <p>
+ * Each shard has its own lock, so accesses of unrelated variables don't wait
+ * for each other.
+ */
+final class VariablesShard {
+	
+	/**
+	 * Must be locked to access {@link #map}. The tree of the map is never
+	 * read without the lock, as a read racing a write may follow a link of a
+	 * half-rebalanced node and never return.
+	 */
+	final ReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	final VariablesMap map = new VariablesMap();
+	
+	/**
+	 * Changes to variables of this shard that have not yet been written, in
+	 * the order they were made.
+	 */
+	final Queue<VariableChange> changeQueue = new ConcurrentLinkedQueue<>();
+	
+	/**
+	 * The newest queued change of each variable in {@link #changeQueue}, so
+	 * reads don't have to search the queue.
+	 */
+	private final Map<String, VariableChange> pendingChanges = new ConcurrentHashMap<>();
+	
+	/**
+	 * How many changes of list variables ({@code list::*}) are queued. These
+	 * may affect any variable of the list, so they can't be looked up by name.
+	 */
+	private final AtomicInteger pendingListChanges = new AtomicInteger();
+	
+	/**
+	 * A variable change name-value pair.
+	 */
+	static final class VariableChange {
+		
+		public final String name;
+		@Nullable
+		public final Object value;
+		
+		public VariableChange(String name, @Nullable Object value) {
+			this.name = name;
+			this.value = value;
+		}
+	}
+	
+	/**
+	 * Queues a variable change. Only to be called when direct write is not
+	 * possible, but thread cannot be allowed to block.
+	 * @param name Variable name.
+	 * @param value New value.
+	 */
+	void queueChange(String name, @Nullable Object value) {
+		VariableChange change = new VariableChange(name, value);
+		if (name.endsWith("*"))
+			pendingListChanges.incrementAndGet();
+		// Index before queueing, so the change can't be applied before it is indexed
+		pendingChanges.put(name, change);
+		changeQueue.add(change);
+	}
+	
+	/**
+	 * Must be called after a change taken from {@link #changeQueue} has been
+	 * applied to {@link #map}.
+	 * @param change The change that was applied.
+	 */
+	void changeApplied(VariableChange change) {
+		// Newer changes of the same variable are still pending
+		pendingChanges.remove(change.name, change);
+		if (change.name.endsWith("*"))
+			pendingListChanges.decrementAndGet();
+	}
+	
+	/**
+	 * Returns the internal value of the requested variable.
+	 * <p>
+	 * <b>Do not modify the returned value!</b>
+	 * 
+	 * @param name The variable's name, already normalized.
+	 * @return an Object for a normal Variable or a Map<String, Object> for a list variable, or null if the variable is not set.
+	 */
+	@Nullable
+	Object getVariable(final String name) {
+		if (!name.endsWith("*") && pendingListChanges.get() == 0) {
+			// Prevent race conditions from returning variables with incorrect values
+			final VariableChange change = pendingChanges.get(name);
+			if (change != null)
+				return change.value;
+		} else if (!changeQueue.isEmpty()) {
+			// Queued changes might affect this list, so apply them first
+			lock.writeLock().lock();
+			try {
+				Variables.processChangeQueue(this);
+				return map.getVariable(name);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		
+		lock.readLock().lock();
+		try {
+			return map.getVariable(name);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+}
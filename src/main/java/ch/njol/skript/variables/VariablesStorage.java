@@ -21,7 +21,13 @@ package ch.njol.skript.variables;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -50,6 +56,34 @@ public abstract class VariablesStorage implements Closeable {
 	
 	final LinkedBlockingQueue<SerializedVariable> changesQueue = new LinkedBlockingQueue<>(QUEUE_SIZE);
 	
+	/**
+	 * Number of changes that have been queued but not yet saved, including
+	 * the ones that have already been taken from the queue by the write thread.
+	 */
+	private final AtomicInteger unsavedChanges = new AtomicInteger();
+	
+	/**
+	 * Number of changes that have been queued to be saved in this storage.
+	 */
+	private final AtomicLong receivedChanges = new AtomicLong();
+	
+	/**
+	 * Number of variables that have actually been written by {@link #save(Collection)}. This is less than {@link #receivedChanges} if multiple changes of a variable were
+	 * coalesced into one write.
+	 */
+	protected final AtomicLong writtenChanges = new AtomicLong();
+	
+	/**
+	 * The maximum number of changes that are saved at once.
+	 */
+	private int batchSize = 100;
+	
+	/**
+	 * How long the write thread waits for more changes before saving an
+	 * incomplete batch, in milliseconds.
+	 */
+	private long batchDelay = 0;
+	
 	protected volatile boolean closed = false;
 	
 	protected final String databaseName;
@@ -71,15 +105,34 @@ public abstract class VariablesStorage implements Closeable {
 		writeThread = Skript.newThread(new Runnable() {
 			@Override
 			public void run() {
+				// Only the last change of each variable in a batch has to be saved
+				final Map<String, SerializedVariable> batch = new LinkedHashMap<>();
 				while (!closed) {
+					int taken = 0;
 					try {
-						final SerializedVariable var = changesQueue.take();
-						final Value d = var.value;
-						if (d != null)
-							save(var.name, d.type, d.data);
-						else
-							save(var.name, null, null);
+						SerializedVariable var = changesQueue.take();
+						batch.put(var.name, var);
+						taken++;
+						final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchDelay);
+						while (taken < batchSize) {
+							var = changesQueue.poll();
+							if (var == null) {
+								final long wait = end - System.nanoTime();
+								if (wait <= 0 || (var = changesQueue.poll(wait, TimeUnit.NANOSECONDS)) == null)
+									break;
+							}
+							batch.put(var.name, var);
+							taken++;
+						}
 					} catch (final InterruptedException e) {}
+					if (taken > 0) {
+						try {
+							save(batch.values());
+						} finally {
+							batch.clear();
+							unsavedChanges.addAndGet(-taken);
+						}
+					}
 				}
 			}
 		}, "Skript variable save thread for database '" + name + "'");
@@ -121,6 +174,23 @@ public abstract class VariablesStorage implements Closeable {
 			return false;
 		}
 		
+		if (n.getValue("batch size") != null) {
+			final Integer batchSize = getValue(n, "batch size", Integer.class);
+			if (batchSize == null)
+				return false;
+			if (batchSize < 1) {
+				Skript.error("The batch size of the database '" + databaseName + "' must be at least 1");
+				return false;
+			}
+			this.batchSize = batchSize;
+		}
+		if (n.getValue("batch delay") != null) {
+			final Timespan batchDelay = getValue(n, "batch delay", Timespan.class);
+			if (batchDelay == null)
+				return false;
+			this.batchDelay = batchDelay.getMilliSeconds();
+		}
+		
 		if (requiresFile()) {
 			final String f = getValue(n, "file");
 			if (f == null)
@@ -189,7 +259,7 @@ public abstract class VariablesStorage implements Closeable {
 	protected abstract File getFile(String file);
 	
 	/**
-	 * Must be locked after {@link Variables#getReadLock()} (if that lock is used at all)
+	 * Must be locked after the locks of {@link Variables#getShards()} (if those locks are used at all)
 	 */
 	protected final Object connectionLock = new Object();
 	
@@ -215,20 +285,29 @@ public abstract class VariablesStorage implements Closeable {
 		backupTask = new Task(Skript.getInstance(), t.getTicks_i(), t.getTicks_i(), true) {
 			@Override
 			public void run() {
-				synchronized (connectionLock) {
-					disconnect();
-					try {
-						FileUtils.backup(file);
-					} catch (final IOException e) {
-						Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
-					} finally {
-						connect();
-					}
-				}
+				backup(file);
 			}
 		};
 	}
 	
+	/**
+	 * Creates a backup of the database file, see {@link FileUtils#backup(File)}. Called by the backup task, which does not run on Bukkit's main thread.
+	 * <p>
+	 * The default implementation disconnects from the database while the file is copied.
+	 */
+	protected void backup(final File file) {
+		synchronized (connectionLock) {
+			disconnect();
+			try {
+				FileUtils.backup(file);
+			} catch (final IOException e) {
+				Skript.error("Automatic variables backup failed: " + e.getLocalizedMessage());
+			} finally {
+				connect();
+			}
+		}
+	}
+	
 	boolean accept(final @Nullable String var) {
 		if (var == null)
 			return false;
@@ -248,6 +327,8 @@ public abstract class VariablesStorage implements Closeable {
 			Skript.warning("Cannot write variables to the database '" + databaseName + "' at sufficient speed; server performance may suffer and many variables will be lost if the server crashes. (this warning will be repeated at most once every " + WARNING_INTERVAL + " seconds)");
 			lastWarning = System.currentTimeMillis();
 		}
+		unsavedChanges.incrementAndGet();
+		receivedChanges.incrementAndGet();
 		if (!changesQueue.offer(var)) {
 			if (lastError < System.currentTimeMillis() - ERROR_INTERVAL * 1000) {
 				Skript.error("Skript cannot save any variables to the database '" + databaseName + "'. The server will hang and may crash if no more variables can be saved.");
@@ -269,7 +350,7 @@ public abstract class VariablesStorage implements Closeable {
 	 */
 	@Override
 	public void close() {
-		while (changesQueue.size() > 0) {
+		while (unsavedChanges.get() > 0) {
 			try {
 				Thread.sleep(10);
 			} catch (final InterruptedException e) {}
@@ -282,7 +363,8 @@ public abstract class VariablesStorage implements Closeable {
 	 * Clears the saveQueue of unsaved variables. Only used if all variables are saved immediately after calling this method.
 	 */
 	protected void clearChangesQueue() {
-		changesQueue.clear();
+		while (changesQueue.poll() != null)
+			unsavedChanges.decrementAndGet();
 	}
 	
 	/**
@@ -295,4 +377,44 @@ public abstract class VariablesStorage implements Closeable {
 	 */
 	protected abstract boolean save(String name, @Nullable String type, @Nullable byte[] value);
 	
+	/**
+	 * Saves a batch of variables, which contains at most one change of each variable. This is called from the {@link #writeThread}.
+	 * <p>
+	 * The default implementation calls {@link #save(String, String, byte[])} for each variable. Storages should override this if they can save multiple variables at once more
+	 * efficiently, e.g. by only flushing their output once.
+	 * 
+	 * @param vars
+	 * @return Whether all variables were saved
+	 */
+	protected boolean save(final Collection<SerializedVariable> vars) {
+		boolean success = true;
+		for (final SerializedVariable var : vars) {
+			final Value d = var.value;
+			if (d != null)
+				success &= save(var.name, d.type, d.data);
+			else
+				success &= save(var.name, null, null);
+		}
+		writtenChanges.addAndGet(vars.size());
+		return success;
+	}
+	
+	public String getDatabaseName() {
+		return databaseName;
+	}
+	
+	/**
+	 * @return How many variable changes have been queued to be saved in this storage
+	 */
+	public long getReceivedChanges() {
+		return receivedChanges.get();
+	}
+	
+	/**
+	 * @return How many variables have been written by this storage, which is less than {@link #getReceivedChanges()} if changes were coalesced
+	 */
+	public long getWrittenChanges() {
+		return writtenChanges.get();
+	}
+	
 }
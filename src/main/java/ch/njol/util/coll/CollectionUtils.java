@@ -348,6 +348,26 @@ public abstract class CollectionUtils {
 		return array;
 	}
 	
+	private final static ClassValue<Object[]> emptyArrays = new ClassValue<Object[]>() {
+		@Override
+		protected Object[] computeValue(final Class<?> c) {
+			return (Object[]) Array.newInstance(c, 0);
+		}
+	};
+	
+	/**
+	 * Returns an empty array of the given component type. Empty arrays can't be modified, thus the same array is returned for every call.
+	 * 
+	 * @param c The component type of the array, which must not be primitive
+	 * @return An empty array of the given type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T[] emptyArray(final Class<? extends T> c) {
+		final T[] r = (T[]) emptyArrays.get(c);
+		assert r != null;
+		return r;
+	}
+	
 	/**
 	 * Creates a permutation of all integers in the interval [start, end]
 	 * 
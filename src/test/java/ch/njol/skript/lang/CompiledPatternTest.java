@@ -0,0 +1,54 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.lang;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class CompiledPatternTest {
+	
+	@Test
+	public void testGetRequiredWords() {
+		final String[][] tests = {
+				{"send %strings% to %players%", "send", "to"},
+				{"[the] name of %entity%", "name", "of"},
+				{"(teleport|tp) %entities% to %location%", "to"},
+				{"%number%th"},
+				{"foo[bar] baz", "baz"},
+				{"player's tool", "player", "s", "tool"},
+				{"\\(x\\) y", "x", "y"},
+				{"x|y"},
+				{"broken [pattern"},
+		};
+		for (final String[] test : tests) {
+			assertEquals(test[0], new HashSet<>(Arrays.asList(test).subList(1, test.length)), new CompiledPattern(test[0]).getRequiredWords());
+		}
+	}
+	
+	@Test
+	public void testGetWords() {
+		assertEquals(new HashSet<>(Arrays.asList("send", "hi", "to", "player", "s")), CompiledPattern.getWords("Send \"hi\" to Player's"));
+	}
+	
+}
@@ -0,0 +1,240 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ch.njol.skript.variables.BinaryFileStorage.Record;
+
+public class BinaryFileStorageTest {
+	
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Writes variables to a file, which is created if it doesn't exist.
+	 * 
+	 * @param changes Pairs of names and values, where a null value deletes the variable.
+	 */
+	private static void write(final File f, final @Nullable String... changes) throws IOException {
+		try (DataOutputStream out = BinaryFileStorage.openFile(f)) {
+			for (int i = 0; i < changes.length; i += 2) {
+				final String name = changes[i], value = changes[i + 1];
+				assert name != null;
+				BinaryFileStorage.writeRecord(out, name, value == null ? null : "string", value == null ? null : value.getBytes(FlatFileStorage.UTF_8));
+			}
+		}
+	}
+	
+	private static Map<String, Record> read(final boolean complete, final File... files) throws IOException {
+		final Map<String, Record> records = new LinkedHashMap<>();
+		for (final File f : files)
+			assertEquals(complete, BinaryFileStorage.read(f, records, false));
+		return records;
+	}
+	
+	private static void assertValue(final Map<String, Record> records, final String name, final @Nullable String value) {
+		final Record r = records.get(name);
+		if (value == null) {
+			assertNull(name, r);
+			return;
+		}
+		assertNotNull(name, r);
+		assertEquals("string", r.type);
+		assertArrayEquals(value.getBytes(FlatFileStorage.UTF_8), r.data);
+	}
+	
+	private static void assertSameRecords(final Map<String, Record> expected, final Map<String, Record> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for (final Map.Entry<String, Record> e : expected.entrySet()) {
+			final Record r = actual.get(e.getKey());
+			assertEquals(e.getValue().type, r.type);
+			assertArrayEquals(e.getValue().data, r.data);
+		}
+	}
+	
+	@Test
+	public void testRoundTrip() throws IOException {
+		final char[] large = new char[100000]; // larger than the read buffer
+		Arrays.fill(large, 'x');
+		final File f = folder.newFile("variables.dat");
+		write(f, "a", "1", "list::1", "", "\u00fcn\u00efc\u00f6d\u00e9::n\u00e9v", "value", "b", "2", "a", null, "large", new String(large));
+		write(f, "b", "3"); // appending doesn't write another header
+		
+		final Map<String, Record> records = read(true, f);
+		assertEquals(4, records.size());
+		assertValue(records, "a", null);
+		assertValue(records, "b", "3");
+		assertValue(records, "list::1", "");
+		assertValue(records, "\u00fcn\u00efc\u00f6d\u00e9::n\u00e9v", "value");
+		assertValue(records, "large", new String(large));
+		
+		final Map<String, Record> withDeletions = new LinkedHashMap<>();
+		assertTrue(BinaryFileStorage.read(f, withDeletions, true));
+		assertSame(Record.DELETED, withDeletions.get("a"));
+	}
+	
+	@Test
+	public void testEmptyFile() throws IOException {
+		assertTrue(read(true, folder.newFile("variables.dat")).isEmpty());
+	}
+	
+	@Test
+	public void testTruncatedTail() throws IOException {
+		final File f = folder.newFile("variables.dat");
+		write(f, "a", "1", "b", "2");
+		final long length = f.length();
+		
+		// Cut off inside the last record's data
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.setLength(length - 1);
+		}
+		Map<String, Record> records = read(false, f);
+		assertValue(records, "a", "1");
+		assertValue(records, "b", null);
+		
+		// Cut off inside the last record's length
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.setLength(length - (4 + 8 + 1 + 6 + 1) + 2);
+		}
+		records = read(false, f);
+		assertValue(records, "a", "1");
+		assertEquals(1, records.size());
+	}
+	
+	@Test
+	public void testCorruptTail() throws IOException {
+		final File f = folder.newFile("variables.dat");
+		write(f, "a", "1");
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.seek(raf.length());
+			raf.writeInt(3); // too short for a record
+			raf.writeInt(0);
+		}
+		final Map<String, Record> records = new LinkedHashMap<>();
+		try {
+			BinaryFileStorage.read(f, records, false);
+			fail("corrupted file was read");
+		} catch (final IOException e) {}
+		assertValue(records, "a", "1"); // changes before the corrupted one are kept
+	}
+	
+	@Test
+	public void testCorruptLength() throws IOException {
+		final File f = folder.newFile("variables.dat");
+		write(f, "a", "1", "b", "2");
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.seek(BinaryFileStorage.HEADER_LENGTH);
+			raf.writeInt(Integer.MAX_VALUE); // would be allocated if it were trusted
+		}
+		assertTrue(read(false, f).isEmpty());
+	}
+	
+	@Test
+	public void testCorruptNameLength() throws IOException {
+		final File f = folder.newFile("variables.dat");
+		write(f, "a", "1", "b", "2");
+		try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+			raf.seek(BinaryFileStorage.HEADER_LENGTH + 4);
+			raf.writeInt(20); // fits into the file, but not into the record
+		}
+		try {
+			BinaryFileStorage.read(f, new LinkedHashMap<>(), false);
+			fail("corrupted file was read");
+		} catch (final IOException e) {}
+	}
+	
+	@Test
+	public void testNotAVariablesFile() throws IOException {
+		final File f = folder.newFile("variables.dat");
+		try (PrintWriter pw = new PrintWriter(f, "UTF-8")) {
+			pw.println("name, type, value");
+		}
+		try {
+			BinaryFileStorage.read(f, new LinkedHashMap<>(), false);
+			fail("text file was read");
+		} catch (final IOException e) {}
+	}
+	
+	@Test
+	public void testInterruptedCompaction() throws IOException {
+		final File base = folder.newFile("variables.dat");
+		final File segment1 = new File(folder.getRoot(), "variables.dat.1.log"), segment2 = new File(folder.getRoot(), "variables.dat.2.log");
+		write(base, "a", "1", "b", "2", "c", "3");
+		write(segment1, "a", "4", "b", null, "d", "5");
+		write(segment2, "c", null, "d", "6", "e", "7");
+		final Map<String, Record> expected = read(true, base, segment1, segment2);
+		
+		// Segments merged into one, but the older one wasn't deleted
+		BinaryFileStorage.merge(Arrays.asList(segment1, segment2), segment2, true);
+		assertSameRecords(expected, read(true, base, segment1, segment2));
+		assertSameRecords(expected, read(true, base, segment2));
+		
+		// Segments merged into the base file, but not deleted
+		BinaryFileStorage.merge(Arrays.asList(base, segment1, segment2), base, false);
+		assertSameRecords(expected, read(true, base, segment1, segment2));
+		assertSameRecords(expected, read(true, base));
+		
+		assertFalse(new File(base.getPath() + ".temp").exists());
+	}
+	
+	@Test
+	public void testImportCSV() throws IOException {
+		final File csv = folder.newFile("variables.csv");
+		try (PrintWriter pw = new PrintWriter(csv, "UTF-8")) {
+			pw.println("# === Skript's variable storage ===");
+			pw.println("# version: 2.5");
+			pw.println();
+			pw.println("a, string, 31");
+			pw.println("\"list::b, c\", string, 3233");
+			pw.println("deleted, null, ");
+			pw.println("invalid line");
+		}
+		final Map<String, Record> records = new LinkedHashMap<>();
+		assertEquals(1, BinaryFileStorage.importCSV(csv, records));
+		assertEquals(2, records.size());
+		assertValue(records, "a", "1");
+		assertValue(records, "list::b, c", "23");
+		
+		try (PrintWriter pw = new PrintWriter(csv, "UTF-8")) {
+			pw.println("# version: 2.0");
+			pw.println("a, string, 31");
+		}
+		try {
+			BinaryFileStorage.importCSV(csv, new LinkedHashMap<>());
+			fail("CSV file of an old version was imported");
+		} catch (final IOException e) {}
+	}
+	
+}
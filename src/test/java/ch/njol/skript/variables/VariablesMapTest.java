@@ -0,0 +1,163 @@
+/**
+ *   This file is part of Skript.
+ *
+ *  Skript is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Skript is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Skript.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *
+ * Copyright 2011-2017 Peter Güttinger and contributors
+ */
+package ch.njol.skript.variables;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class VariablesMapTest {
+	
+	private static int signum(final String s1, final String s2) {
+		return Integer.signum(VariablesMap.variableNameComparator.compare(s1, s2));
+	}
+	
+	@Test
+	public void testComparator() {
+		assertEquals(0, signum("abc", "abc"));
+		assertEquals(-1, signum("abc", "abd"));
+		assertEquals(-1, signum("2", "10"));
+		assertEquals(1, signum("100000", "99999"));
+		assertEquals(-1, signum("item9", "item10"));
+		assertEquals(-1, signum("a1b2", "a1b10"));
+		assertEquals(1, signum("007", "7")); // Different names are never equal, shorter runs of digits come first
+		assertEquals(-1, signum("a::1", "a::01"));
+		assertEquals(-1, signum("01b", "1c")); // Text after the digits still comes first
+		assertEquals(1, signum("x01y02", "x1y2"));
+		assertEquals(1, signum("10", "1a"));
+		assertEquals(1, signum("abc", "abcd")); // Longer names come first
+		assertEquals(-1, signum(null, "a"));
+		assertEquals(0, signum(null, null));
+		
+		// Numbers too large for a long are compared by their digits
+		assertEquals(1, signum("99999999999999999999", "99999999999999999998"));
+		assertEquals(0, signum("99999999999999999999", "99999999999999999999"));
+		assertEquals(-1, signum("9223372036854775806", "9223372036854775807"));
+	}
+	
+	@Test
+	public void testNumericallyEqualNames() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("a::1", "one");
+		map.setVariable("a::01", "zero one");
+		map.setVariable("a::007", "double-o seven");
+		assertEquals("one", map.getVariable("a::1"));
+		assertEquals("zero one", map.getVariable("a::01"));
+		assertEquals("double-o seven", map.getVariable("a::007"));
+		assertNull(map.getVariable("a::7"));
+		assertEquals(3, map.size());
+		
+		map.setVariable("a::01", null);
+		assertEquals("one", map.getVariable("a::1"));
+		assertNull(map.getVariable("a::01"));
+		assertEquals(2, map.size());
+	}
+	
+	@Test
+	public void testUseSlotsMovesValues() {
+		final VariablesMap map = new VariablesMap();
+		map.setVariable("x", 1);
+		map.setVariable("y", 2);
+		map.setVariable("y::a", 3);
+		map.setVariable("z", 4);
+		
+		final LocalSlots slots = new LocalSlots();
+		final int x = slots.getSlot("x"), y = slots.getSlot("y"), w = slots.getSlot("w");
+		assertTrue(map.useSlots(slots));
+		assertEquals(1, map.getSlot(x));
+		assertEquals(2, map.getSlot(y));
+		assertNull(map.getSlot(w));
+		assertFalse(map.treeMap.containsKey("x"));
+		assertEquals(3, map.getVariable("y::a")); // The list stays in the tree, only its value is moved
+		assertEquals(4, map.getVariable("z"));
+		assertEquals(4, map.size());
+		
+		// Names with slots are accessed through them
+		assertEquals(1, map.getVariable("x"));
+		map.setVariable("w", 5);
+		assertEquals(5, map.getSlot(w));
+		assertFalse(map.treeMap.containsKey("w"));
+	}
+	
+	@Test
+	public void testSlotSize() {
+		final VariablesMap map = new VariablesMap();
+		final LocalSlots slots = new LocalSlots();
+		final int a = slots.getSlot("a");
+		assertTrue(map.useSlots(slots));
+		assertEquals(0, map.size());
+		map.setSlot(a, "a");
+		assertEquals(1, map.size());
+		map.setSlot(a, "b"); // Replacing a value doesn't change the size
+		assertEquals(1, map.size());
+		map.setVariable("a", null);
+		assertEquals(0, map.size());
+		map.setSlot(a, null);
+		assertEquals(0, map.size());
+	}
+	
+	@Test
+	public void testUseSlotsOfOneTrigger() {
+		final VariablesMap map = new VariablesMap();
+		final LocalSlots first = new LocalSlots(), second = new LocalSlots();
+		first.getSlot("a");
+		second.getSlot("b");
+		assertTrue(map.useSlots(first));
+		assertTrue(map.useSlots(first));
+		assertFalse(map.useSlots(second));
+		
+		// The second trigger still accesses its variables by name, i.e. in the tree
+		map.setVariable("b", "b");
+		assertEquals("b", map.treeMap.get("b"));
+		assertEquals("b", map.getVariable("b"));
+	}
+	
+	@Test
+	public void testSlotsAddedLater() {
+		final VariablesMap map = new VariablesMap();
+		final LocalSlots slots = new LocalSlots();
+		slots.getSlot("a");
+		assertTrue(map.useSlots(slots));
+		
+		// Added after the map allocated its slots, thus stored in the tree
+		final int b = slots.getSlot("b");
+		map.setVariable("b", "b");
+		assertEquals("b", map.treeMap.get("b"));
+		assertEquals("b", map.getVariable("b"));
+		assertEquals(1, map.size());
+		
+		// Using the slots again allocates the new slot and moves the value into it
+		assertTrue(map.useSlots(slots));
+		assertEquals("b", map.getSlot(b));
+		assertFalse(map.treeMap.containsKey("b"));
+		assertEquals("b", map.getVariable("b"));
+		assertEquals(1, map.size());
+	}
+	
+	@Test
+	public void testParseDigits() {
+		assertEquals(0, VariablesMap.parseDigits("0", 0, 1));
+		assertEquals(123, VariablesMap.parseDigits("ab123cd", 2, 5));
+		assertEquals(Long.MAX_VALUE, VariablesMap.parseDigits("9223372036854775807", 0, 19));
+		assertEquals(Long.MAX_VALUE, VariablesMap.parseDigits("9223372036854775808", 0, 19));
+		assertEquals(Long.MAX_VALUE, VariablesMap.parseDigits("123456789012345678901234567890", 0, 30));
+	}
+	
+}